@@ -4,6 +4,7 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.jenkinsci.test.acceptance.po.PageObject;
+import org.jenkinsci.test.acceptance.selenium.ByPath;
 import org.openqa.selenium.By;
 
 /**
@@ -38,9 +39,11 @@ public class ByFactory {
      * Returns the "path" selector that finds an element by following the form-element-path plugin.
      *
      * https://wiki.jenkins-ci.org/display/JENKINS/Form+Element+Path+Plugin
+     *
+     * @see ByPath
      */
     public By path(String path, Object... args) {
-        return css("[path='%s']", String.format(path, args));
+        return new ByPath(String.format(path, args));
     }
 
     public By name(String name, Object... args) {
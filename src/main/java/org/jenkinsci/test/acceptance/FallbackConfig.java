@@ -4,9 +4,11 @@ import javax.inject.Named;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.aether.RepositorySystem;
@@ -18,8 +20,19 @@ import org.jenkinsci.test.acceptance.controller.JenkinsControllerFactory;
 import org.jenkinsci.test.acceptance.guice.TestCleaner;
 import org.jenkinsci.test.acceptance.guice.TestName;
 import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.jenkinsci.test.acceptance.selenium.CommandHistory;
+import org.jenkinsci.test.acceptance.selenium.CommandProfiler;
+import org.jenkinsci.test.acceptance.selenium.DockerBrowserGrid;
+import org.jenkinsci.test.acceptance.selenium.ElementWaiter;
+import org.jenkinsci.test.acceptance.selenium.FormBatch;
+import org.jenkinsci.test.acceptance.selenium.PageGeneration;
+import org.jenkinsci.test.acceptance.selenium.PageTimings;
+import org.jenkinsci.test.acceptance.selenium.ResourceCachingProxy;
 import org.jenkinsci.test.acceptance.selenium.SanityChecker;
 import org.jenkinsci.test.acceptance.selenium.Scroller;
+import org.jenkinsci.test.acceptance.selenium.VirtualDisplayPool;
+import org.jenkinsci.test.acceptance.selenium.VirtualDisplayPool.Display;
+import org.jenkinsci.test.acceptance.selenium.WebDriverPool;
 import org.jenkinsci.test.acceptance.server.JenkinsControllerPoolProcess;
 import org.jenkinsci.test.acceptance.server.PooledJenkinsController;
 import org.jenkinsci.test.acceptance.slave.LocalSlaveProvider;
@@ -36,13 +49,16 @@ import org.junit.runners.model.Statement;
 import org.openqa.selenium.UnsupportedCommandException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxBinary;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxProfile;
 import org.openqa.selenium.htmlunit.HtmlUnitDriver;
 import org.openqa.selenium.ie.InternetExplorerDriver;
 import org.openqa.selenium.phantomjs.PhantomJSDriver;
 import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.safari.SafariDriver;
 import org.openqa.selenium.support.events.EventFiringWebDriver;
 
@@ -76,17 +92,59 @@ public class FallbackConfig extends AbstractModule {
         bind(MailService.class).to(Mailtrap.class);
     }
 
-    private WebDriver createWebDriver(TestName testName) throws IOException {
+    private static String getBrowser() {
         String browser = System.getenv("BROWSER");
         if (browser==null) browser = "firefox";
-        browser = browser.toLowerCase(Locale.ENGLISH);
+        return browser.toLowerCase(Locale.ENGLISH);
+    }
+
+    private FirefoxProfile createFirefoxProfile(ResourceCachingProxy proxy) throws IOException {
+        FirefoxProfile profile = new FirefoxProfile();
+        profile.setPreference(LANGUAGE_SELECTOR, "en");
+        if (proxy.isEnabled()) {
+            String[] address = proxy.getAddress().split(":");
+            profile.setPreference("network.proxy.type", 1);
+            profile.setPreference("network.proxy.http", address[0]);
+            profile.setPreference("network.proxy.http_port", Integer.parseInt(address[1]));
+            profile.setPreference("network.proxy.no_proxies_on", ""); // Jenkins typically runs on localhost
+        }
+        return profile;
+    }
+
+    /**
+     * Creates a browser, on a display of its own if {@link VirtualDisplayPool} is enabled.
+     */
+    private WebDriver createWebDriver(TestName testName, ResourceCachingProxy proxy, VirtualDisplayPool displays, DockerBrowserGrid grid) throws IOException {
+        String browser = getBrowser();
+        if (!displays.isEnabled() || !(browser.equals("firefox") || browser.equals("chrome"))) {
+            return createWebDriver(testName, proxy, (Display) null, grid);
+        }
+
+        Display display = displays.lease();
+        WebDriver d = null;
+        try {
+            d = createWebDriver(testName, proxy, display, grid);
+            displays.bind(d, display);
+            return d;
+        } finally {
+            if (d == null) {
+                displays.release(display);
+            }
+        }
+    }
+
+    private WebDriver createWebDriver(TestName testName, ResourceCachingProxy proxy, Display display, DockerBrowserGrid grid) throws IOException {
+        String browser = getBrowser();
 
         switch (browser) {
         case "firefox":
-            FirefoxProfile profile = new FirefoxProfile();
-            profile.setPreference(LANGUAGE_SELECTOR, "en");
+            FirefoxProfile profile = createFirefoxProfile(proxy);
 
-            return new FirefoxDriver(profile);
+            FirefoxBinary binary = new FirefoxBinary();
+            if (display != null) {
+                binary.setEnvironmentProperty("DISPLAY", display.toString());
+            }
+            return new FirefoxDriver(binary, profile);
         case "ie":
         case "iexplore":
         case "iexplorer":
@@ -96,7 +154,17 @@ public class FallbackConfig extends AbstractModule {
             prefs.put(LANGUAGE_SELECTOR, "en");
             ChromeOptions options = new ChromeOptions();
             options.setExperimentalOption("prefs", prefs);
+            if (proxy.isEnabled()) {
+                options.addArguments("--proxy-server=http=" + proxy.getAddress(), "--proxy-bypass-list=<-loopback>");
+            }
 
+            if (display != null) {
+                ChromeDriverService service = new ChromeDriverService.Builder()
+                        .usingAnyFreePort()
+                        .withEnvironment(Collections.singletonMap("DISPLAY", display.toString()))
+                        .build();
+                return new ChromeDriver(service, options);
+            }
             return new ChromeDriver(options);
         case "safari":
             return new SafariDriver();
@@ -115,6 +183,10 @@ public class FallbackConfig extends AbstractModule {
                 caps.setCapability("build", tag);
 
             return new SauceLabsConnection().createWebDriver(caps);
+        case "docker":
+            DesiredCapabilities docker = DesiredCapabilities.firefox();
+            docker.setCapability(FirefoxDriver.PROFILE, createFirefoxProfile(proxy));
+            return new RemoteWebDriver(grid.next(), docker);
         case "phantomjs":
             DesiredCapabilities capabilities = DesiredCapabilities.phantomjs();
             capabilities.setCapability(LANGUAGE_SELECTOR, "en");
@@ -128,18 +200,42 @@ public class FallbackConfig extends AbstractModule {
 
     /**
      * Creates a {@link WebDriver} for each test, then make sure to clean it up at the end.
+     *
+     * <p>
+     * When {@link WebDriverPool} is enabled, the browser is leased from the pool and returned there
+     * instead of being quit.
      */
     @Provides @TestScope
-    public WebDriver createWebDriver(TestCleaner cleaner, TestName testName) throws IOException {
-        WebDriver base = createWebDriver(testName);
+    public WebDriver createWebDriver(TestCleaner cleaner, final TestName testName, final WebDriverPool pool, final ResourceCachingProxy proxy, final VirtualDisplayPool displays, final DockerBrowserGrid grid, PageGeneration generation, FormBatch batch, CommandHistory history, CommandProfiler profiler, PageTimings timings) throws IOException {
+        final WebDriver base;
+        if (pool.isEnabled()) {
+            base = pool.lease(new Callable<WebDriver>() {
+                @Override
+                public WebDriver call() throws IOException {
+                    return createWebDriver(testName, proxy, displays, grid);
+                }
+            });
+        } else {
+            base = createWebDriver(testName, proxy, displays, grid);
+        }
         final EventFiringWebDriver d = new EventFiringWebDriver(base);
+        if (pool.isEnabled()) {
+            pool.attach(d);
+        }
+        batch.attach(d); // pending writes go in before anybody else looks at the page
         d.register(new SanityChecker());
         d.register(new Scroller());
+        generation.attach(d);
+        history.attach(d);
+        if (timings.isEnabled()) {
+            d.register(timings);
+        }
 
         ElasticTime time = new ElasticTime();
         try {
             d.manage().timeouts().pageLoadTimeout(time.seconds(30), TimeUnit.MILLISECONDS);
-            d.manage().timeouts().implicitlyWait(time.seconds(1), TimeUnit.MILLISECONDS);
+            d.manage().timeouts().implicitlyWait(time.milliseconds(ElementWaiter.IMPLICIT_WAIT), TimeUnit.MILLISECONDS);
+            d.manage().timeouts().setScriptTimeout(time.milliseconds(ElementWaiter.SCRIPT_TIMEOUT), TimeUnit.MILLISECONDS);
         } catch (UnsupportedCommandException e) {
             // sauce labs RemoteWebDriver doesn't support this
             System.out.println(base + " doesn't support page load timeout");
@@ -147,10 +243,17 @@ public class FallbackConfig extends AbstractModule {
         cleaner.addTask(new Statement() {
             @Override
             public void evaluate() throws Throwable {
-                d.quit();
+                if (pool.isEnabled()) {
+                    pool.release(base);
+                } else {
+                    d.quit();
+                    displays.release(base);
+                }
             }
         });
-        return d;
+
+        WebDriver r = batch.wrap(d);
+        return profiler.isEnabled() ? profiler.wrap(r) : r;
     }
 
     /**
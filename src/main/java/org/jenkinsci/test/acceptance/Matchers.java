@@ -3,6 +3,7 @@ package org.jenkinsci.test.acceptance;
 import org.hamcrest.Description;
 import org.jenkinsci.test.acceptance.plugins.analysis_collector.AnalysisPlugin;
 import org.jenkinsci.test.acceptance.po.*;
+import org.jenkinsci.test.acceptance.selenium.PageText;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebDriver;
@@ -28,6 +29,11 @@ public class Matchers {
         return new Matcher<WebDriver>("Text matching %s", pattern) {
             @Override
             public boolean matchesSafely(WebDriver item) {
+                // only fetch the whole text if the browser can not search it
+                Boolean found = PageText.find(item, pattern);
+                if (found != null) {
+                    return found;
+                }
                 return pattern.matcher(pageText(item)).find();
             }
 
@@ -0,0 +1,18 @@
+package org.jenkinsci.test.acceptance.docker.fixtures;
+
+import org.jenkinsci.test.acceptance.docker.DockerContainer;
+import org.jenkinsci.test.acceptance.docker.DockerFixture;
+
+/**
+ * Runs Firefox behind a standalone Selenium server.
+ *
+ * <p>
+ * The container is meant to be run with the network of the host, so that the browser can reach
+ * Jenkins and other fixtures bound to localhost. Pass <tt>-port N</tt> as the command to choose the port
+ * the server listens on.
+ *
+ * @see org.jenkinsci.test.acceptance.selenium.DockerBrowserGrid
+ */
+@DockerFixture(id="firefox")
+public class FirefoxContainer extends DockerContainer {
+}
@@ -0,0 +1,181 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.jenkinsci.test.acceptance.selenium.CommandHistory;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves what the browser showed when a test failed.
+ *
+ * <p>
+ * The screenshot is taken and the URL, cookies, and DOM are read with one driver call each, while the browser is
+ * still on the page that failed. Compressing and writing them to <tt>target/diagnostics/&lt;test></tt>,
+ * together with the recent browser commands from {@link CommandHistory} and the failure, happens in the background,
+ * so the test can be cleaned up in the meantime.
+ *
+ * <p>
+ * Each test JVM writes at most <tt>FAILURE_CAPTURE_BUDGET</tt> megabytes (100 by default). Beyond that only the
+ * small text summary is written. Set it to 0 to turn the capture off.
+ */
+@Singleton
+public class FailureCapture implements Closeable {
+    private static final String SCRIPT =
+            "return [location.href, document.cookie, document.documentElement ? document.documentElement.outerHTML : ''];";
+
+    private final File dir = new File("target/diagnostics");
+
+    private final long budget;
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Failure capture writer");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    @Inject
+    public FailureCapture(WorldCleaner cleaner) {
+        String b = System.getenv("FAILURE_CAPTURE_BUDGET");
+        this.budget = (b == null ? 100 : Long.parseLong(b)) * 1024 * 1024;
+        cleaner.addTask(this);
+    }
+
+    /**
+     * Captures the state of the browser of the current test, if it has one.
+     *
+     * @param injector Injector in the test scope.
+     */
+    public void capture(Injector injector, String testName, Throwable failure) {
+        if (budget <= 0) {
+            return;
+        }
+
+        try {
+            doCapture(injector, testName, failure);
+        } catch (RuntimeException e) {
+            // never hide the actual failure
+            LOGGER.log(Level.WARNING, "Failed to capture diagnostics of " + testName, e);
+        }
+    }
+
+    private void doCapture(Injector injector, String testName, Throwable failure) {
+        final CommandHistory history = injector.getInstance(CommandHistory.class);
+        WebDriver driver = history.getDriver();
+        final File target = new File(dir, testName.replaceAll("[^A-Za-z0-9_.-]+", "_"));
+        final StringWriter summary = new StringWriter();
+        PrintWriter out = new PrintWriter(summary);
+        out.println("Test: " + testName);
+        failure.printStackTrace(out);
+
+        byte[] screenshot = null;
+        String html = null;
+        if (driver != null) {
+            try {
+                screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            } catch (WebDriverException | ClassCastException | UnsupportedOperationException e) {
+                out.println("No screenshot: " + e);
+            }
+            try {
+                List<?> page = (List<?>) ((JavascriptExecutor) driver).executeScript(SCRIPT);
+                out.println("URL: " + page.get(0));
+                out.println("Cookies visible to scripts: " + page.get(1));
+                html = String.valueOf(page.get(2));
+            } catch (WebDriverException | ClassCastException e) {
+                out.println("No page: " + e);
+            }
+            out.println("Recent browser commands:");
+            for (String c : history.recent()) {
+                out.println("  " + c);
+            }
+        }
+        out.flush();
+
+        final byte[] png = screenshot;
+        final String dom = html;
+        writer.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(target, summary.toString(), png, dom);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to write diagnostics to " + target, e);
+                }
+            }
+        });
+    }
+
+    private void write(File target, String summary, byte[] png, String dom) throws IOException {
+        target.mkdirs();
+        byte[] text = summary.getBytes("UTF-8");
+        FileUtils.writeByteArrayToFile(new File(target, "failure.txt"), text);
+        written.addAndGet(text.length);
+
+        if (png != null && withinBudget(png.length)) {
+            FileUtils.writeByteArrayToFile(new File(target, "screenshot.png"), png);
+        }
+
+        if (dom != null) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            try (OutputStream gz = new GZIPOutputStream(buf)) {
+                gz.write(dom.getBytes("UTF-8"));
+            }
+            if (withinBudget(buf.size())) {
+                FileUtils.writeByteArrayToFile(new File(target, "page.html.gz"), buf.toByteArray());
+            }
+        }
+    }
+
+    private boolean withinBudget(long size) {
+        if (written.addAndGet(size) <= budget) {
+            return true;
+        }
+        written.addAndGet(-size);
+        return false;
+    }
+
+    /**
+     * Waits for the pending captures to be written.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warning("Gave up waiting for failure diagnostics to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(FailureCapture.class.getName());
+}
@@ -39,6 +39,7 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
         return new Statement() {
             @Inject JenkinsController controller;
             @Inject Injector injector;
+            @Inject FailureCapture capture;
 
             @Override
             public void evaluate() throws Throwable {
@@ -56,6 +57,7 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
                 } catch (AssumptionViolatedException e) {
                     throw e;
                 } catch (Exception|AssertionError e) { // Errors and failures
+                    capture.capture(injector, description.getDisplayName(), e);
                     controller.diagnose(e);
                     throw e;
                 } finally {
@@ -0,0 +1,124 @@
+package org.jenkinsci.test.acceptance.log;
+
+import org.openqa.selenium.TimeoutException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects log lines from {@link LogListenable} and lets tests wait for a line to appear.
+ *
+ * <p>
+ * Unlike {@link LogWatcher}, lines received before {@link #waitFor(Pattern, long, TimeUnit)} is called
+ * are retained, so a test can trigger an action first and then wait for the message it causes.
+ * Waiting is push based: the waiting thread is woken up as soon as a new line arrives.
+ */
+public class LogCollector implements LogListener, Closeable {
+    /**
+     * Maximum number of lines retained. Older lines are discarded.
+     */
+    public static final int MAX_LINES = 10000;
+
+    private final LogListenable source;
+
+    private final List<String> lines = new ArrayList<>();
+
+    /**
+     * Number of lines discarded from the head of {@link #lines}.
+     */
+    private long dropped;
+
+    /**
+     * Non-null once the log source has terminated.
+     */
+    private Exception closed;
+
+    public LogCollector(LogListenable source) {
+        this.source = source;
+        source.addLogListener(this);
+    }
+
+    @Override
+    public synchronized void processLine(String line) {
+        lines.add(line);
+        if (lines.size() > MAX_LINES) {
+            int n = lines.size() / 2;
+            lines.subList(0, n).clear();
+            dropped += n;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void processClose(Exception t) {
+        closed = t != null ? t : new IOException("Regular termination");
+        notifyAll();
+    }
+
+    /**
+     * Checks if any of the lines collected so far contains the pattern.
+     */
+    public synchronized boolean hasLogged(Pattern pattern) {
+        return find(pattern, 0) != null;
+    }
+
+    /**
+     * Blocks until a line containing the pattern is logged, including the lines logged
+     * before this method was called.
+     *
+     * @throws TimeoutException if no such line appears in time.
+     */
+    public synchronized Matcher waitFor(Pattern pattern, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int from = 0;
+        while (true) {
+            long seen = dropped + lines.size();
+            Matcher m = find(pattern, from);
+            if (m != null) {
+                return m;
+            }
+
+            if (closed != null) {
+                throw new TimeoutException("Log terminated before " + pattern + " was logged", closed);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("Failed to wait for " + pattern + " to be logged");
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutException("Interrupted while waiting for " + pattern + " to be logged", e);
+            }
+
+            // only scan the lines that arrived while waiting
+            from = (int) Math.max(0, seen - dropped);
+        }
+    }
+
+    private Matcher find(Pattern pattern, int from) {
+        for (int i = from; i < lines.size(); i++) {
+            Matcher m = pattern.matcher(lines.get(i));
+            if (m.find()) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops collecting.
+     */
+    @Override
+    public void close() {
+        source.removeLogListener(this);
+    }
+}
@@ -2,17 +2,27 @@ package org.jenkinsci.test.acceptance.log;
 
 import org.apache.http.concurrent.BasicFuture;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.util.concurrent.Future;
 
 /**
  * Reads {@link InputStream} and delivers logs to {@link LogListener}.
  *
+ * <p>
+ * Line boundaries are found on the raw bytes in a single reusable buffer, so the only
+ * per-line allocation is the {@link String} handed to the listener. Like
+ * {@link java.io.BufferedReader#readLine()}, a line ends with '\n', '\r', or "\r\n".
+ *
  * @author Kohsuke Kawaguchi
  */
 public class LogReader implements Runnable {
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * Stream to read from.
      */
@@ -25,6 +35,18 @@ public class LogReader implements Runnable {
 
     private final LogListener listener;
 
+    private final Charset charset = Charset.defaultCharset();
+
+    /**
+     * Bytes read but not yet delivered, between position and limit when in read mode.
+     */
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The last line ended with '\r', so a '\n' right after it belongs to that line ending.
+     */
+    private boolean skipLf;
+
     public LogReader(InputStream source, LogListener listener) {
         this.source = source;
         this.listener = listener;
@@ -40,11 +62,26 @@ public class LogReader implements Runnable {
 
     @Override
     public void run() {
-        String line;
         try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(source));
-            while ((line = reader.readLine()) != null) {
-                listener.processLine(line);
+            ReadableByteChannel in = Channels.newChannel(source);
+            while (in.read(buf) != -1) {
+                buf.flip();
+                deliverLines();
+                buf.compact();
+
+                if (!buf.hasRemaining()) {
+                    // a single line does not fit
+                    ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                    buf.flip();
+                    bigger.put(buf);
+                    buf = bigger;
+                }
+            }
+
+            // the last line might not be terminated
+            buf.flip();
+            if (buf.hasRemaining()) {
+                deliver(buf.position(), buf.limit());
             }
             System.out.println("Jenkins is stopped");
         } catch (Exception e) {
@@ -55,4 +92,28 @@ public class LogReader implements Runnable {
             done.completed(null);
         }
     }
+
+    /**
+     * Delivers all complete lines in the buffer and moves its position past them.
+     */
+    private void deliverLines() throws IOException {
+        byte[] bytes = buf.array();
+        int start = buf.position();
+        int end = buf.limit();
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b == '\n' && skipLf && i == start) {
+                start = i + 1; // second half of "\r\n", possibly split across reads
+            } else if (b == '\n' || b == '\r') {
+                deliver(start, i);
+                start = i + 1;
+            }
+            skipLf = b == '\r';
+        }
+        buf.position(start);
+    }
+
+    private void deliver(int from, int to) throws IOException {
+        listener.processLine(new String(buf.array(), from, to - from, charset));
+    }
 }
@@ -34,7 +34,7 @@ public class AbstractDashboardViewPortlet extends PageAreaImpl {
      * @return the name of the portlet
      */
     public String getName() {
-        return this.name.resolve().getAttribute("value");
+        return this.name.snapshotValue(snapshot());
     }
 
 
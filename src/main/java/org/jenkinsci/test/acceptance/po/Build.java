@@ -3,6 +3,7 @@ package org.jenkinsci.test.acceptance.po;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -27,7 +28,15 @@ import static org.hamcrest.MatcherAssert.*;
 public class Build extends ContainerPageObject {
     public final Job job;
 
+    /*
+     * Properties that never change once known, remembered to spare API calls.
+     * The result and the node are final once the build completes. The number and the node are only
+     * remembered if this object points to a build by number, as permalinks move on to newer builds.
+     */
     private String result;
+    private Integer number;
+    private String node;
+    private boolean started;
 
     /**
      * Console output. Cached.
@@ -38,6 +47,7 @@ public class Build extends ContainerPageObject {
     public Build(Job job, int buildNumber) {
         super(job.injector, job.url("%d/", buildNumber));
         this.job = job;
+        this.number = buildNumber;
     }
 
     public Build(Job job, String permalink) {
@@ -48,8 +58,16 @@ public class Build extends ContainerPageObject {
     public Build(Job job, URL url) {
         super(job.injector, url);
         this.job = job;
+        this.number = numberIn(url);
+    }
+
+    private static Integer numberIn(URL url) {
+        java.util.regex.Matcher m = NUMBERED.matcher(url.getPath());
+        return m.find() ? Integer.valueOf(m.group(1)) : null;
     }
 
+    private static final Pattern NUMBERED = Pattern.compile("/(\\d+)/$");
+
     /**
      * "Casts" this object into a subtype by creating the specified type
      */
@@ -76,13 +94,14 @@ public class Build extends ContainerPageObject {
     }
 
     public boolean hasStarted() {
-        if (result != null) {
+        if (result != null || started) {
             return true;
         }
 
         try {
-            getJson();
+            getJsonTree("number");
             // we have json. Build has started.
+            started = true;
             return true;
         } catch (Exception e) {
             return false;
@@ -117,12 +136,43 @@ public class Build extends ContainerPageObject {
             return false;
         }
 
-        JsonNode d = getJson();
-        return d.get("building").booleanValue() || d.get("result") == null;
+        JsonNode d = getJsonTree("building", "result");
+        if (d.get("building").booleanValue() || d.get("result") == null) {
+            return true;
+        }
+        if (d.get("result").isTextual()) {
+            result = d.get("result").asText();
+        }
+        return false;
+    }
+
+    /**
+     * Takes in the status of this build as read by {@link Job#updateBuilds(Collection)}.
+     */
+    void update(JsonNode d) {
+        started = true;
+        JsonNode r = d.get("result");
+        if (!d.get("building").booleanValue() && r != null && r.isTextual()) {
+            result = r.asText();
+            if (number != null && d.has("builtOn")) {
+                String n = d.get("builtOn").asText();
+                node = n.length() == 0 ? "master" : n;
+            }
+        }
+    }
+
+    /**
+     * True if this build is known to have completed, without making any API call.
+     */
+    boolean isKnownToBeFinished() {
+        return result != null;
     }
 
     public int getNumber() {
-        return getJson().get("number").asInt();
+        if (number != null) {
+            return number;
+        }
+        return getJsonTree("number").get("number").asInt();
     }
 
     public URL getConsoleUrl() {
@@ -142,6 +192,15 @@ public class Build extends ContainerPageObject {
             return console;
         }
 
+        try {
+            HttpURLConnection con = openConnection(url("consoleText"));
+            if (con.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                return console = IOUtils.toString(con.getInputStream(), "UTF-8");
+            }
+        } catch (IOException e) {
+            // fall back to the browser
+        }
+
         visit(getConsoleUrl());
 
         List<WebElement> a = all(by.xpath("//pre"));
@@ -181,7 +240,7 @@ public class Build extends ContainerPageObject {
         }
 
         waitUntilFinished();
-        result = getJson().get("result").asText();
+        result = getJsonTree("result").get("result").asText();
         return result;
     }
 
@@ -238,9 +297,15 @@ public class Build extends ContainerPageObject {
     }
 
     public String getNode() {
-        String n = getJson().get("builtOn").asText();
+        if (node != null) {
+            return node;
+        }
+        String n = getJsonTree("builtOn").get("builtOn").asText();
         if (n.length() == 0) {
-            return "master";
+            n = "master";
+        }
+        if (number != null && result != null) {
+            node = n;
         }
         return n;
     }
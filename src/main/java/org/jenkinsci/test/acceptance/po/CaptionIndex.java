@@ -0,0 +1,115 @@
+package org.jenkinsci.test.acceptance.po;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides in which order {@link CapybaraPortingLayerImpl#findCaption(Class, CapybaraPortingLayerImpl.Finder)}
+ * tries the captions of a {@link Describable}.
+ *
+ * <p>
+ * Every caption that does not exist costs a lookup that waits for the element to appear in vain. To avoid that,
+ * all the texts captions can match are read from the page in a single script call, and captions that are present
+ * are tried first. The caption that worked last time for the same type and Jenkins version is tried before anything else.
+ *
+ * <p>
+ * The index only reorders the attempts, all captions are still tried eventually, so an imprecise index never
+ * changes the outcome.
+ */
+class CaptionIndex {
+    private static final String SCRIPT;
+
+    static {
+        try {
+            SCRIPT = IOUtils.toString(CaptionIndex.class.getResourceAsStream("caption-index.js"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Caption that matched, keyed by the {@link Describable} type and the Jenkins version.
+     */
+    private static final ConcurrentMap<String, String> REMEMBERED = new ConcurrentHashMap<>();
+
+    private final String key;
+
+    private final List<String> texts;
+
+    private CaptionIndex(String key, List<String> texts) {
+        this.key = key;
+        this.texts = texts;
+    }
+
+    /**
+     * Reads the texts of the current page.
+     *
+     * @param context Anything that identifies the Jenkins under test, such as its version, or null if not known.
+     */
+    static CaptionIndex of(WebDriver driver, Class<?> type, Object context) {
+        List<String> texts = null;
+        try {
+            Object r = ((JavascriptExecutor) driver).executeScript(SCRIPT);
+            if (r instanceof Collection) {
+                texts = new ArrayList<>();
+                for (Object o : (Collection<?>) r) {
+                    texts.add(String.valueOf(o));
+                }
+            }
+        } catch (WebDriverException | ClassCastException e) {
+            // the captions will be tried in their declared order
+        }
+        return new CaptionIndex(type.getName() + '@' + context, texts);
+    }
+
+    /**
+     * Orders the captions by how likely they are to be found.
+     */
+    List<String> order(String[] captions) {
+        Set<String> present = new LinkedHashSet<>();
+        Set<String> absent = new LinkedHashSet<>();
+        for (String c : captions) {
+            (isPresent(c) ? present : absent).add(c);
+        }
+
+        List<String> r = new ArrayList<>(captions.length);
+        String last = REMEMBERED.get(key);
+        if (last != null && present.remove(last)) {
+            r.add(last);
+        }
+        r.addAll(present);
+        r.addAll(absent);
+        return r;
+    }
+
+    /**
+     * Remembers the caption that was found.
+     */
+    void matched(String caption) {
+        REMEMBERED.put(key, caption);
+    }
+
+    private boolean isPresent(String caption) {
+        if (texts == null) {
+            return true;
+        }
+        for (String t : texts) {
+            // labels and options are matched by substring
+            if (t.contains(caption)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -5,11 +5,17 @@ import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.hamcrest.StringDescription;
 import org.jenkinsci.test.acceptance.Matcher;
 import org.jenkinsci.test.acceptance.junit.Resource;
+import org.jenkinsci.test.acceptance.selenium.ElementWaiter;
+import org.jenkinsci.test.acceptance.selenium.FusedInteraction;
+import org.jenkinsci.test.acceptance.selenium.PageGeneration;
 import org.jenkinsci.test.acceptance.utils.ElasticTime;
+import org.jenkinsci.test.acceptance.utils.WaitStatistics;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
@@ -42,8 +48,20 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
     @Inject
     public Injector injector;
 
+    @Inject
+    private WaitStatistics waitStatistics;
+
+    /**
+     * Changes of the page in the browser, to be advanced by anything that changes the page behind the back
+     * of the {@link org.openqa.selenium.support.events.EventFiringWebDriver}.
+     */
+    @Inject
+    protected PageGeneration generation;
+
     protected static final ElasticTime time = new ElasticTime();
 
+    private static final ElementWaiter waiter = new ElementWaiter();
+
     /**
      * Some subtypes are constructed via Guice, in which case injection is done by outside this class.
      * The injector parameter should be null for that case.
@@ -88,7 +106,7 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
      */
     @Override
     public WebElement waitFor(final By selector, final int timeoutSec) {
-        return waitForCond(new Callable<WebElement>() {
+        Callable<WebElement> condition = new Callable<WebElement>() {
             @Override
             public WebElement call() {
                 try {
@@ -102,7 +120,31 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
             public String toString() {
                 return String.format("Element matching %s is present", selector.toString());
             }
-        }, timeoutSec);
+        };
+
+        long timeout = time.seconds(timeoutSec == 0 ? 120 : timeoutSec);
+        long startTime = System.currentTimeMillis();
+        if (ElementWaiter.isSupported(selector)) {
+            try {
+                WebElement e = waiter.waitFor(driver, selector, timeout, false);
+                if (e == null) {
+                    // visibility is only approximated in the browser, so take one last look from here
+                    e = findVisibleNow(selector);
+                    if (e == null) {
+                        throw new TimeoutException("Failed to wait for condition: " + condition);
+                    }
+                    return e;
+                }
+                if (isDisplayed(e)) {
+                    return e;
+                }
+            } catch (UnsupportedOperationException _) {
+                // fall back to polling
+            }
+        }
+
+        // only for the time the browser has not waited already
+        return waitUntil(condition, timeout - (System.currentTimeMillis() - startTime));
     }
 
     @Override
@@ -113,6 +155,9 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
     /**
      * Repeated evaluate the given predicate until it returns true.
      * <p/>
+     * The predicate is retried quickly at first and then less and less often, up to every
+     * {@link #MAX_WAIT_DELAY} milliseconds. Time spent waiting is recorded in {@link WaitStatistics}.
+     * <p/>
      * If it times out, an exception will be thrown.
      *
      * @param timeoutSec 0 if left to the default value
@@ -122,29 +167,70 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
         if (timeoutSec == 0) {
             timeoutSec = 120;
         }
+        return waitUntil(block, time.seconds(timeoutSec));
+    }
+
+    /**
+     * Implements {@link #waitForCond(Callable, int)} with the timeout already scaled, in milliseconds.
+     * The predicate is evaluated at least once.
+     */
+    private <T> T waitUntil(Callable<T> block, long timeout) {
+        long startTime = System.currentTimeMillis();
+        int attempts = 0;
+        boolean satisfied = false;
         try {
-            long endTime = System.currentTimeMillis() + time.seconds(timeoutSec);
-            while (System.currentTimeMillis() < endTime) {
+            long endTime = startTime + timeout;
+            long delay = MIN_WAIT_DELAY;
+            while (true) {
+                attempts++;
                 T v = block.call();
                 if (isTrueish(v)) {
+                    satisfied = true;
                     return v;
                 }
-                sleep(500);
+                if (System.currentTimeMillis() >= endTime) {
+                    break;
+                }
+                // jitter so that concurrent waits do not hit Jenkins in lockstep
+                sleep(delay * 3 / 4 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+                delay = Math.min(delay * 2, MAX_WAIT_DELAY);
             }
             throw new TimeoutException("Failed to wait for condition: " + block);
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
             throw new Error("Failed to wait for condition: " + block, e);
+        } finally {
+            if (waitStatistics != null && waitStatistics.isEnabled()) {
+                waitStatistics.record(
+                        WaitStatistics.callSite(CapybaraPortingLayerImpl.class), block,
+                        attempts, System.currentTimeMillis() - startTime, satisfied
+                );
+            }
         }
     }
 
+    /**
+     * Delay before the first retry of {@link #waitForCond(Callable, int)}, in milliseconds.
+     */
+    private static final long MIN_WAIT_DELAY = 10;
+
+    /**
+     * Longest delay between retries of {@link #waitForCond(Callable, int)}, in milliseconds.
+     */
+    private static final long MAX_WAIT_DELAY = 500;
+
     @Override public <T> void waitFor(final T item, final Matcher<T> matcher, int timeout) {
         try {
             waitForCond(new Callable<Boolean>() {
                 @Override public Boolean call() throws Exception {
                     return matcher.matchesSafely(item);
                 }
+
+                @Override public String toString() {
+                    Object what = item instanceof PageObject ? ((PageObject) item).url : item;
+                    return what + " " + StringDescription.toString(matcher);
+                }
             }, timeout);
         } catch (TimeoutException x) {
             StringDescription desc = new StringDescription();
@@ -175,7 +261,25 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
     public WebElement find(By selector) {
         try {
             long endTime = System.currentTimeMillis() + time.seconds(1);
-            while (System.currentTimeMillis() <= endTime) {
+            if (ElementWaiter.isSupported(selector)) {
+                try {
+                    WebElement e = waiter.waitFor(driver, selector, time.seconds(1), false);
+                    if (e == null) {
+                        // visibility is only approximated in the browser, so take one last look from here
+                        e = findVisibleNow(selector);
+                        if (e == null) {
+                            throw new NoSuchElementException("Unable to locate visible " + selector + " in " + driver.getCurrentUrl());
+                        }
+                        return e;
+                    } else if (isDisplayed(e)) {
+                        return e;
+                    }
+                } catch (UnsupportedOperationException _) {
+                    // fall back to polling
+                }
+            }
+
+            while (true) {
                 WebElement e = driver.findElement(selector);
                 if (isDisplayed(e)) {
                     return e;
@@ -187,6 +291,10 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
                     }
                 }
 
+                if (System.currentTimeMillis() > endTime) {
+                    break;
+                }
+
                 // give a bit more chance for the element to become visible
                 sleep(100);
             }
@@ -229,6 +337,23 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
         }
     }
 
+    /**
+     * Returns the first visible element that matches the selector right now, without waiting out the implicit wait.
+     */
+    private WebElement findVisibleNow(By selector) {
+        driver.manage().timeouts().implicitlyWait(0, TimeUnit.MILLISECONDS);
+        try {
+            for (WebElement e : driver.findElements(selector)) {
+                if (isDisplayed(e)) {
+                    return e;
+                }
+            }
+            return null;
+        } finally {
+            driver.manage().timeouts().implicitlyWait(time.milliseconds(ElementWaiter.IMPLICIT_WAIT), TimeUnit.MILLISECONDS);
+        }
+    }
+
     /**
      * Consider stale elements not displayed.
      */
@@ -257,6 +382,9 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
     @Override
     public void fillIn(String formFieldName, Object value) {
         WebElement e = find(By.name(formFieldName));
+        if (FusedInteraction.set(driver, e, value.toString())) {
+            return;
+        }
         e.clear();
         e.sendKeys(value.toString());
     }
@@ -266,9 +394,7 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
      */
     @Override
     public void check(WebElement e) {
-        if (!e.isSelected()) {
-            e.click();
-        }
+        check(e, true);
     }
 
     /**
@@ -276,6 +402,9 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
      */
     @Override
     public void check(WebElement e, boolean state) {
+        if (FusedInteraction.check(driver, e, state, generation)) {
+            return;
+        }
         if (e.isSelected() != state) {
             e.click();
         }
@@ -313,7 +442,22 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
      */
     @Override
     public WebElement last(By selector) {
-        find(selector); // wait until at least one is found
+        if (ElementWaiter.isSupported(selector)) {
+            try {
+                WebElement e = waiter.waitFor(driver, selector, time.seconds(1), true);
+                if (e != null) {
+                    return e;
+                }
+                // visibility is only approximated in the browser, so take one last look from here
+                if (findVisibleNow(selector) == null) {
+                    throw new NoSuchElementException("Unable to locate visible " + selector + " in " + driver.getCurrentUrl());
+                }
+            } catch (UnsupportedOperationException _) {
+                find(selector); // wait until at least one is found
+            }
+        } else {
+            find(selector); // wait until at least one is found
+        }
 
         // but what we want is the last one
         List<WebElement> l = driver.findElements(selector);
@@ -395,16 +539,28 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
         }
     }
 
+    /**
+     * Tries the captions of the {@link Describable} type until the finder succeeds.
+     *
+     * <p>
+     * Captions that appear in the current page are tried first, so that types with many historical
+     * captions do not wait for each missing one in turn.
+     *
+     * @see CaptionIndex
+     */
     protected <T> T findCaption(Class<?> type, Finder<T> call) {
         String[] captions = type.getAnnotation(Describable.class).value();
 
         RuntimeException cause = new NoSuchElementException(
                 "None of the captions exists: " + Joiner.on(", ").join(captions)
         );
-        for (String caption : captions) {
+        // nothing to reorder with a single caption
+        CaptionIndex index = captions.length > 1 ? CaptionIndex.of(driver, type, jenkinsVersion()) : null;
+        for (String caption : index != null ? index.order(captions) : asList(captions)) {
             try {
                 T out = call.find(caption);
                 if (out != null) {
+                    if (index != null) index.matched(caption);
                     return out;
                 }
             } catch (RuntimeException ex) {
@@ -415,6 +571,14 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
         throw cause;
     }
 
+    private Object jenkinsVersion() {
+        try {
+            return injector.getInstance(Jenkins.class).getVersion();
+        } catch (RuntimeException e) {
+            return null; // outside of a test
+        }
+    }
+
     /**
      * Obtains a resource in a wrapper.
      */
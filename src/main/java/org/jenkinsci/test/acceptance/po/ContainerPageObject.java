@@ -4,15 +4,22 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.inject.Injector;
 import groovy.lang.Closure;
 import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.test.acceptance.selenium.BrowserSession;
+import org.jenkinsci.test.acceptance.selenium.FormBatch;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 
+import javax.inject.Inject;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -26,6 +33,14 @@ import static org.jenkinsci.test.acceptance.Matchers.hasContent;
  * @author Kohsuke Kawaguchi
  */
 public abstract class ContainerPageObject extends PageObject {
+    @Inject
+    private BrowserSession session;
+
+    /**
+     * Properties asked for by {@link #getJsonTree(String...)} so far.
+     */
+    private final Set<String> treeProperties = new TreeSet<>();
+
     protected ContainerPageObject(Injector injector, URL url) {
         super(injector, url);
         if (!url.toExternalForm().endsWith("/")) {
@@ -37,18 +52,32 @@ public abstract class ContainerPageObject extends PageObject {
         this(context.injector, url);
     }
 
-    public void configure(Closure body) {
-        configure();
-        body.call(this);
-        save();
+    public void configure(final Closure body) {
+        configure(new Callable<Object>() {
+            @Override
+            public Object call() {
+                return body.call(ContainerPageObject.this);
+            }
+        });
     }
 
-    public <T> T configure(Callable<T> body) {
+    /**
+     * Opens the configuration page, runs the body, and saves.
+     *
+     * <p>
+     * Form writes done by the body through {@link Control}s are {@linkplain FormBatch batched}.
+     */
+    public <T> T configure(final Callable<T> body) {
         try {
             configure();
-            T v = body.call();
-            save();
-            return v;
+            return injector.getInstance(FormBatch.class).apply(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    T v = body.call();
+                    save();
+                    return v;
+                }
+            });
         } catch (Exception e) {
             throw new AssertionError(e);
         }
@@ -104,17 +133,74 @@ public abstract class ContainerPageObject extends PageObject {
                 url = new URL(url + "?" + queryString);
             }
 
-            // Pass in all the cookies (in particular the session cookie.)
-            // This ensures that the API call sees what the current user sees.
-            HttpURLConnection con = (HttpURLConnection) url.openConnection();
-            con.setRequestProperty("Cookie", StringUtils.join(driver.manage().getCookies(), ";"));
-
-            return jsonParser.readTree(con.getInputStream());
+            return session.getJson(url, jsonParser);
         } catch (IOException e) {
             throw new RuntimeException("Failed to read from " + url, e);
         }
     }
 
+    /**
+     * Makes the API call, asking Jenkins only for the given properties.
+     *
+     * <p>
+     * Properties are given in the syntax of the <tt>tree</tt> query parameter, such as <tt>number</tt> or
+     * <tt>activeConfigurations[name]</tt>. Properties asked for earlier through this object are asked for again,
+     * so that getters used together see the same response and the projection stays small either way.
+     */
+    public JsonNode getJsonTree(String... properties) {
+        String tree;
+        synchronized (treeProperties) {
+            treeProperties.addAll(Arrays.asList(properties));
+            tree = StringUtils.join(treeProperties, ",");
+        }
+        return getJson("tree=" + tree);
+    }
+
+    /**
+     * Opens a connection that carries the session of the browser.
+     */
+    protected HttpURLConnection openConnection(URL url) throws IOException {
+        // Pass in all the cookies (in particular the session cookie.)
+        // This ensures that the API call sees what the current user sees.
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        con.setRequestProperty("Cookie", session.getCookieHeader());
+        return con;
+    }
+
+    /**
+     * Submits a form over HTTP with the session of the browser, without rendering anything.
+     * <p/>
+     * If CSRF protection rejects the request, it is retried with a crumb.
+     *
+     * @param body URL encoded form data.
+     */
+    protected HttpURLConnection post(URL url, String body) throws IOException {
+        session.invalidate();
+        HttpURLConnection con = post(url, body, null);
+        if (con.getResponseCode() == HttpURLConnection.HTTP_FORBIDDEN) {
+            JsonNode crumb = getJenkins().getCrumb();
+            if (crumb != null) {
+                con = post(url, body, crumb);
+            }
+        }
+        return con;
+    }
+
+    private HttpURLConnection post(URL url, String body, JsonNode crumb) throws IOException {
+        HttpURLConnection con = openConnection(url);
+        con.setRequestMethod("POST");
+        con.setInstanceFollowRedirects(false); // let callers see where Jenkins sends them, e.g. to the login page
+        con.setDoOutput(true);
+        con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+        if (crumb != null) {
+            con.setRequestProperty(crumb.get("crumbRequestField").asText(), crumb.get("crumb").asText());
+        }
+        try (OutputStream out = con.getOutputStream()) {
+            out.write(body.getBytes("UTF-8"));
+        }
+        return con;
+    }
+
     /**
      * Create action of this page object.
      *
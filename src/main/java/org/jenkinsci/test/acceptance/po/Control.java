@@ -1,11 +1,19 @@
 package org.jenkinsci.test.acceptance.po;
 
 import org.jenkinsci.test.acceptance.junit.Resource;
+import org.jenkinsci.test.acceptance.selenium.ByPath;
+import org.jenkinsci.test.acceptance.selenium.FormBatch;
+import org.jenkinsci.test.acceptance.selenium.FusedInteraction;
+import org.jenkinsci.test.acceptance.selenium.PageGeneration;
 import org.openqa.selenium.*;
 
 import com.google.inject.Injector;
 
 import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Wraps a specific form element in {@link PageAreaImpl} to provide operations.
@@ -26,6 +34,15 @@ public class Control extends CapybaraPortingLayerImpl {
     private final Owner parent;
     private final String[] relativePaths;
 
+    @Inject
+    private FormBatch batch;
+
+    /**
+     * Element found by the last {@link #resolve()}, valid as long as the page stays at {@link #resolvedGeneration}.
+     */
+    private WebElement resolved;
+    private long resolvedGeneration;
+
     public Control(PageAreaImpl parent, String... relativePaths) {
         super(parent.injector);
         this.parent = parent;
@@ -57,11 +74,36 @@ public class Control extends CapybaraPortingLayerImpl {
         };
     }
 
+    /**
+     * Finds the element of this control.
+     * <p/>
+     * The element is remembered until the page changes, so repeated interactions with the same
+     * control do not look it up again.
+     *
+     * @see PageGeneration
+     */
     public WebElement resolve() {
+        batch.flush();
+
+        long g = generation.current();
+        if (resolved != null && resolvedGeneration == g && generation.isTracking()) {
+            // scripts can replace or hide parts of the page without the generation noticing
+            try {
+                if (resolved.isDisplayed()) {
+                    return resolved;
+                }
+            } catch (StaleElementReferenceException _) {
+                // look it up again
+            }
+            resolved = null;
+        }
+
         NoSuchElementException problem = new NoSuchElementException("No relative path specified!");
         for (String p : relativePaths) {
             try {
-                return find(parent.path(p));
+                resolved = find(parent.path(p));
+                resolvedGeneration = g;
+                return resolved;
             }
             catch (NoSuchElementException e) {
                 problem = e;
@@ -70,22 +112,63 @@ public class Control extends CapybaraPortingLayerImpl {
         throw problem;
     }
 
-    public void sendKeys(String t) {
-        resolve().sendKeys(t);
+    /**
+     * Interaction with the resolved element that is retried once with a freshly found element
+     * if the remembered one has gone stale.
+     * <p/>
+     * Only use it for interactions that are safe to repeat, as the element can go stale half way through.
+     */
+    private abstract class Interaction {
+        protected abstract void on(WebElement e);
+
+        void perform() {
+            try {
+                on(resolve());
+            } catch (StaleElementReferenceException e) {
+                resolved = null;
+                on(resolve());
+            }
+        }
+    }
+
+    public void sendKeys(final String t) {
+        new Interaction() {
+            @Override protected void on(WebElement e) {
+                e.sendKeys(t);
+            }
+        }.perform();
     }
 
     public void uncheck() {
-        check(resolve(), false);
+        check(false);
     }
 
     public void check() {
-        check(resolve(), true);
+        check(true);
+    }
+
+    public void check(final boolean state) {
+        if (offer("check", state, new Runnable() {
+            @Override public void run() {
+                checkNow(state);
+            }
+        })) {
+            return;
+        }
+        checkNow(state);
     }
 
-    public void check(boolean state) {
-        check(resolve(), state);
+    private void checkNow(final boolean state) {
+        new Interaction() {
+            @Override protected void on(WebElement e) {
+                check(e, state);
+            }
+        }.perform();
     }
 
+    /**
+     * Clicks the element. Unlike other interactions, this is not retried, as a click can submit something.
+     */
     public void click() {
         resolve().click();
     }
@@ -105,10 +188,24 @@ public class Control extends CapybaraPortingLayerImpl {
      * @param text the large string to be entered
      */
 
-    public void setAtOnce(String text){
-        WebElement e = resolve();
-        e.clear();
-        ((JavascriptExecutor)driver).executeScript("arguments[0].value = arguments[1];", e, text);
+    public void setAtOnce(final String text){
+        if (offer("set", text, new Runnable() {
+            @Override public void run() {
+                setAtOnceNow(text);
+            }
+        })) {
+            return;
+        }
+        setAtOnceNow(text);
+    }
+
+    private void setAtOnceNow(final String text) {
+        new Interaction() {
+            @Override protected void on(WebElement e) {
+                e.clear();
+                ((JavascriptExecutor)driver).executeScript("arguments[0].value = arguments[1];", e, text);
+            }
+        }.perform();
     }
 
 
@@ -117,17 +214,31 @@ public class Control extends CapybaraPortingLayerImpl {
      *
      * Any existing value gets cleared.
      */
-    public void set(@Nullable String text) {
+    public void set(@Nullable final String text) {
         //if the text is longer than 255 characters, use the high throughput variant
         if (text!=null && text.length() > 255)
             setAtOnce(text);
-        else {
-            WebElement e = resolve();
-            e.clear();
-            e.sendKeys(text);
+        else if (text == null || !offer("set", text, new Runnable() {
+            @Override public void run() {
+                setNow(text);
+            }
+        })) {
+            setNow(text);
         }
     }
 
+    private void setNow(@Nullable final String text) {
+        new Interaction() {
+            @Override protected void on(WebElement e) {
+                if (FusedInteraction.set(driver, e, text)) {
+                    return;
+                }
+                e.clear();
+                e.sendKeys(text);
+            }
+        }.perform();
+    }
+
     public void set(Object text) {
         set(text.toString());
     }
@@ -181,16 +292,81 @@ public class Control extends CapybaraPortingLayerImpl {
     /**
      * Select an option.
      */
-    public void select(String option) {
-        WebElement e = resolve();
-        e.findElement(by.option(option)).click();
+    public void select(final String option) {
+        if (offer("select", option, new Runnable() {
+            @Override public void run() {
+                selectNow(option);
+            }
+        })) {
+            return;
+        }
+        selectNow(option);
+    }
+
+    private void selectNow(final String option) {
+        new Interaction() {
+            @Override protected void on(WebElement e) {
+                e.findElement(by.option(option)).click();
+
+                // move the focus away from the select control to fire onchange event
+                e.sendKeys(Keys.TAB);
+            }
+        }.perform();
+    }
+
+    /**
+     * Queues the write in the current {@link FormBatch}, if any.
+     *
+     * Only controls located purely by element path can be batched, as the batch finds elements by path in the page.
+     *
+     * @return false if the write needs to be performed right away.
+     */
+    private boolean offer(String action, Object value, Runnable nativeWrite) {
+        List<String> paths = new ArrayList<>();
+        for (String p : relativePaths) {
+            if (p == null) return false;
+            By by = parent.path(p);
+            if (!(by instanceof ByPath)) return false;
+            paths.add(((ByPath) by).getPath());
+        }
+        return batch.offer(paths, action, value, nativeWrite);
+    }
+
+    /**
+     * Value of this control as recorded in the snapshot, so that verifying many controls costs a single script
+     * call rather than a lookup and a read for each.
+     *
+     * @see FormSnapshot#getValue(String)
+     */
+    public String snapshotValue(FormSnapshot snapshot) {
+        return snapshot.getValue(snapshotPath(snapshot));
+    }
 
-        // move the focus away from the select control to fire onchange event
-        e.sendKeys(Keys.TAB);
+    /**
+     * State of this checkbox as recorded in the snapshot.
+     *
+     * @see FormSnapshot#isChecked(String)
+     */
+    public boolean snapshotChecked(FormSnapshot snapshot) {
+        return snapshot.isChecked(snapshotPath(snapshot));
+    }
+
+    private String snapshotPath(FormSnapshot snapshot) {
+        for (String p : relativePaths) {
+            if (p == null) break;
+            By by = parent.path(p);
+            if (by instanceof ByPath) {
+                String rel = snapshot.relativize(((ByPath) by).getPath());
+                if (rel != null && snapshot.has(rel)) {
+                    return rel;
+                }
+            }
+        }
+        throw new NoSuchElementException("No value of " + Arrays.toString(relativePaths) + " in " + snapshot);
     }
 
     public void upload(Resource res) {
-        resolve().sendKeys(res.asFile().getAbsolutePath());
+        sendKeys(res.asFile().getAbsolutePath());
     }
 
     /**
@@ -0,0 +1,141 @@
+package org.jenkinsci.test.acceptance.po;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Values of the form controls in the page at one point in time, keyed by their path.
+ *
+ * <p>
+ * The whole form is read in a single script call, so asserting the configuration of an object
+ * does not cost a round trip per field. The snapshot does not follow later changes of the page.
+ *
+ * @see PageObject#snapshot()
+ * @see PageAreaImpl#snapshot()
+ */
+public class FormSnapshot {
+    private static final String SCRIPT;
+
+    static {
+        try {
+            SCRIPT = IOUtils.toString(FormSnapshot.class.getResourceAsStream("form-snapshot.js"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String prefix;
+
+    private final Map<String, Object> values;
+
+    private FormSnapshot(String prefix, Map<String, Object> values) {
+        this.prefix = prefix;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Reads all the form controls of the current page.
+     */
+    public static FormSnapshot take(WebDriver driver) {
+        Map<?, ?> r = (Map<?, ?>) ((JavascriptExecutor) driver).executeScript(SCRIPT);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> e : r.entrySet()) {
+            values.put(normalize(e.getKey().toString()), e.getValue());
+        }
+        return new FormSnapshot("", values);
+    }
+
+    /**
+     * Narrows down the snapshot to the controls under the given path, so that they can be looked up by relative path.
+     */
+    public FormSnapshot under(String path) {
+        path = normalize(path);
+        if (path.isEmpty()) {
+            return this;
+        }
+
+        Map<String, Object> sub = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            String k = e.getKey();
+            if (k.equals(path)) {
+                sub.put("", e.getValue());
+            } else if (k.startsWith(path + '/')) {
+                sub.put(k.substring(path.length() + 1), e.getValue());
+            }
+        }
+        return new FormSnapshot(prefix + '/' + path, sub);
+    }
+
+    /**
+     * All the values, keyed by path.
+     */
+    public Map<String, Object> asMap() {
+        return values;
+    }
+
+    public boolean has(String path) {
+        return values.containsKey(normalize(path));
+    }
+
+    /**
+     * Value of a text field or a textarea, the text of the selected option of a select,
+     * or the value of the checked radio button of a group.
+     */
+    public String getValue(String path) {
+        Object v = get(path);
+        return v == null ? null : v.toString();
+    }
+
+    /**
+     * State of a checkbox.
+     */
+    public boolean isChecked(String path) {
+        Object v = get(path);
+        if (!(v instanceof Boolean)) {
+            throw new IllegalArgumentException(prefix + '/' + normalize(path) + " is not a checkbox: " + v);
+        }
+        return (Boolean) v;
+    }
+
+    /**
+     * Turns a path in the page into a path relative to this snapshot.
+     *
+     * @return null if the path is not under this snapshot.
+     */
+    String relativize(String absolute) {
+        String p = normalize(absolute);
+        String base = normalize(prefix);
+        if (base.isEmpty()) {
+            return p;
+        }
+        if (p.equals(base)) {
+            return "";
+        }
+        return p.startsWith(base + '/') ? p.substring(base.length() + 1) : null;
+    }
+
+    private Object get(String path) {
+        path = normalize(path);
+        if (!values.containsKey(path)) {
+            throw new NoSuchElementException("No form control at " + prefix + '/' + path);
+        }
+        return values.get(path);
+    }
+
+    private static String normalize(String path) {
+        // this allows "foo" and "/foo" to both work
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    @Override
+    public String toString() {
+        return "FormSnapshot" + values;
+    }
+}
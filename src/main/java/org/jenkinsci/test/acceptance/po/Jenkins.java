@@ -2,15 +2,29 @@ package org.jenkinsci.test.acceptance.po;
 
 import hudson.util.VersionNumber;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.inject.Inject;
 
 import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.guice.TestCleaner;
 import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.jenkinsci.test.acceptance.log.LogCollector;
+import org.jenkinsci.test.acceptance.log.LogListenable;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.inject.Injector;
 
 /**
@@ -118,6 +132,145 @@ public class Jenkins extends Node {
         return JenkinsLogger.create(this,name,levels);
     }
 
+    /**
+     * Sets the levels of the given loggers and starts collecting the console output of Jenkins.
+     *
+     * <p>
+     * Unlike {@link #createLogger(String, Map)}, this does not go through the UI. The levels are set
+     * with a single script request and the messages are awaited on the log stream of the controller,
+     * so waiting for a message does not need to visit any page. The collector is closed at the end of the test.
+     *
+     * @throws AssertionError if the controller does not expose the log of Jenkins.
+     */
+    public LogCollector collectLog(Map<String, Level> levels) {
+        JenkinsController controller = injector.getInstance(JenkinsController.class);
+        if (!(controller instanceof LogListenable)) {
+            throw new AssertionError(controller + " does not expose the log of Jenkins, use createLogger instead");
+        }
+
+        // subscribe first so that nothing logged after the levels change is missed
+        final LogCollector collector = new LogCollector((LogListenable) controller);
+        injector.getInstance(TestCleaner.class).addTask(new Closeable() {
+            @Override
+            public void close() {
+                collector.close();
+                restoreLogHandlers();
+            }
+        });
+        setLogLevels(levels);
+        return collector;
+    }
+
+    /**
+     * Sets the levels of the given loggers with a single request and lets the records
+     * of those levels through to the console output of Jenkins.
+     */
+    public void setLogLevels(Map<String, Level> levels) {
+        StringBuilder map = new StringBuilder();
+        for (Entry<String, Level> e : levels.entrySet()) {
+            if (map.length() > 0) map.append(',');
+            map.append(groovyString(e.getKey())).append(':').append(groovyString(e.getValue().getName()));
+        }
+        if (map.length() == 0) map.append(':');
+
+        runScriptText(String.format(SET_LOG_LEVELS_SCRIPT, map));
+    }
+
+    /**
+     * Puts the console handlers back to the levels they had before {@link #setLogLevels(Map)},
+     * so that later tests do not see the records let through for this one.
+     */
+    public void restoreLogHandlers() {
+        try {
+            runScriptText(RESTORE_LOG_HANDLERS_SCRIPT);
+        } catch (RuntimeException | AssertionError e) {
+            LOGGER.log(Level.WARNING, "Failed to restore the log handlers of Jenkins", e);
+        }
+    }
+
+    private static String groovyString(String s) {
+        return "'" + s.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /**
+     * Loggers obtained by name are only weakly referenced by the LogManager, so the script keeps them
+     * in the system properties to prevent their levels from being lost on GC.
+     */
+    private static final String SET_LOG_LEVELS_SCRIPT =
+            "import java.util.logging.*\n" +
+            "def keep = System.getProperties().get('acceptance-test-harness.loggers')\n" +
+            "if (keep == null) System.getProperties().put('acceptance-test-harness.loggers', keep = [])\n" +
+            "def handlers = Logger.getLogger('').handlers.findAll { it instanceof ConsoleHandler }\n" +
+            "if (System.getProperties().get('acceptance-test-harness.handlers') == null)\n" +
+            "    System.getProperties().put('acceptance-test-harness.handlers', handlers.collectEntries { [(it): it.level] })\n" +
+            "handlers.each { it.level = Level.ALL }\n" +
+            "[%s].each { name, level ->\n" +
+            "    def l = Logger.getLogger(name)\n" +
+            "    l.level = Level.parse(level)\n" +
+            "    keep << l\n" +
+            "}\n";
+
+    private static final String RESTORE_LOG_HANDLERS_SCRIPT =
+            "def saved = System.getProperties().remove('acceptance-test-harness.handlers')\n" +
+            "if (saved != null) saved.each { handler, level -> handler.level = level }\n";
+
+    /**
+     * Obtains the crumb to pass along with POST requests.
+     *
+     * @return null if CSRF protection is not enabled.
+     */
+    public JsonNode getCrumb() {
+        URL url = url("crumbIssuer/api/json");
+        try {
+            HttpURLConnection con = openConnection(url);
+            if (con.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            return jsonParser.readTree(con.getInputStream());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read from " + url, e);
+        }
+    }
+
+    /**
+     * Waits until all the given builds have finished, with one API call per job and poll rather than one per build.
+     *
+     * @see Job#updateBuilds(Collection)
+     */
+    public void waitUntilFinished(Collection<? extends Build> builds, int timeout) {
+        // the same job can be represented by several page objects
+        final Map<String, List<Build>> byJob = new LinkedHashMap<>();
+        for (Build b : builds) {
+            String job = b.job.url.toExternalForm();
+            List<Build> l = byJob.get(job);
+            if (l == null) {
+                byJob.put(job, l = new ArrayList<>());
+            }
+            l.add(b);
+        }
+
+        waitForCond(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                for (Iterator<Entry<String, List<Build>>> itr = byJob.entrySet().iterator(); itr.hasNext(); ) {
+                    Entry<String, List<Build>> e = itr.next();
+                    List<Build> pending = e.getValue().get(0).job.updateBuilds(e.getValue());
+                    if (pending.isEmpty()) {
+                        itr.remove();
+                    } else {
+                        e.setValue(pending);
+                    }
+                }
+                return byJob.isEmpty();
+            }
+
+            @Override
+            public String toString() {
+                return "builds of " + byJob.size() + " jobs to finish";
+            }
+        }, timeout);
+    }
+
     public Plugin getPlugin(String name) {
         return new Plugin(getPluginManager(), name);
     }
@@ -132,4 +285,6 @@ public class Jenkins extends Node {
     public String getName() {
         return "(master)";
     }
+
+    private static final Logger LOGGER = Logger.getLogger(Jenkins.class.getName());
 }
@@ -9,6 +9,12 @@ import java.util.logging.Level;
 import java.util.regex.Pattern;
 
 /**
+ * Log recorder configured in Jenkins.
+ *
+ * <p>
+ * This goes through the UI both to create the recorder and to read it. Tests that only need to wait
+ * for a message to be logged should prefer {@link Jenkins#collectLog(Map)}.
+ *
  * @author Kohsuke Kawaguchi
  */
 public class JenkinsLogger extends PageObject {
@@ -1,5 +1,6 @@
 package org.jenkinsci.test.acceptance.po;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.inject.Injector;
 import cucumber.api.DataTable;
 import org.apache.commons.io.IOUtils;
@@ -9,8 +10,10 @@ import org.openqa.selenium.WebElement;
 import org.zeroturnaround.zip.ZipUtil;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
@@ -39,6 +42,11 @@ public class Job extends ContainerPageObject {
 
     public final Control concurrentBuild = control("/concurrentBuild");
 
+    /**
+     * How many recent builds {@link #updateBuilds(Collection)} last needed to read.
+     */
+    private int buildsRange;
+
     public Job(Injector injector, URL url, String name) {
         super(injector, url);
         this.name = name;
@@ -232,8 +240,11 @@ public class Job extends ContainerPageObject {
         return scheduleBuild(Collections.<String, Object>emptyMap());
     }
 
+    /**
+     * Schedules a build, filling in the parameters.
+     */
     public Build scheduleBuild(Map<String, ?> params) {
-        int nb = getJson().get("nextBuildNumber").intValue();
+        int nb = getJsonTree("nextBuildNumber").get("nextBuildNumber").intValue();
         visit(getBuildUrl());
 
         // if the security is enabled, GET request above will fail
@@ -254,10 +265,115 @@ public class Job extends ContainerPageObject {
         return build(nb);
     }
 
+    /**
+     * Schedules a build of a job that takes no parameters by a plain HTTP request, without rendering any page.
+     * <p/>
+     * Unlike {@link #scheduleBuild()}, this leaves the browser on the page it is on. If Jenkins does not
+     * accept the request as a build being scheduled, this falls back to {@link #scheduleBuild()}.
+     */
+    public Build scheduleBuildOverHttp() {
+        int nb = getJsonTree("nextBuildNumber").get("nextBuildNumber").intValue();
+        if (scheduleOverHttp()) {
+            return build(nb);
+        }
+        return scheduleBuild();
+    }
+
+    private boolean scheduleOverHttp() {
+        try {
+            HttpURLConnection con = post(getBuildUrl(), "");
+            switch (con.getResponseCode()) {
+            case HttpURLConnection.HTTP_CREATED:
+                return true;
+            case HttpURLConnection.HTTP_MOVED_TEMP:
+                // to the job or the queue item; anything else, such as the login page, means no build
+                String location = con.getHeaderField("Location");
+                if (location == null) {
+                    return false;
+                }
+                // only compare paths, the root URL Jenkins redirects to may name the host differently
+                String target = new URL(getBuildUrl(), location).getPath();
+                return target.equals(url.getPath()) || target.contains("/queue/item/");
+            default:
+                return false;
+            }
+        } catch (IOException e) {
+            return false; // let the browser try
+        }
+    }
+
     public Build build(int buildNumber) {
         return new Build(this, buildNumber);
     }
 
+    /**
+     * Updates the status of the given builds of this job with a single API call, rather than one per build.
+     *
+     * @return the builds that are still queued or in progress.
+     */
+    public List<Build> updateBuilds(Collection<? extends Build> builds) {
+        Map<Integer, Build> pending = new HashMap<>();
+        int oldest = Integer.MAX_VALUE;
+        for (Build b : builds) {
+            if (!b.job.url.toExternalForm().equals(url.toExternalForm())) {
+                throw new IllegalArgumentException(b.url + " is not a build of " + url);
+            }
+            if (!b.isKnownToBeFinished()) {
+                int n = b.getNumber();
+                pending.put(n, b);
+                oldest = Math.min(oldest, n);
+            }
+        }
+        if (pending.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // builds are listed newest first, so widen the range until it reaches back to the oldest one
+        int range = Math.max(pending.size(), buildsRange);
+        while (true) {
+            JsonNode all = getJson("tree=builds[number,building,result,builtOn]{0," + range + "}").get("builds");
+            boolean complete = all.size() < range;
+            for (JsonNode d : all) {
+                int n = d.get("number").asInt();
+                Build b = pending.get(n);
+                if (b != null) {
+                    b.update(d);
+                }
+                complete |= n <= oldest;
+            }
+            if (complete) {
+                break;
+            }
+            range *= 2;
+        }
+        buildsRange = range;
+
+        List<Build> r = new ArrayList<>();
+        for (Build b : pending.values()) {
+            if (!b.isKnownToBeFinished()) {
+                r.add(b);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Waits until all the given builds of this job have finished, with one API call per poll for all of them.
+     */
+    public void waitUntilFinished(final Collection<? extends Build> builds, int timeout) {
+        waitForCond(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return updateBuilds(builds).isEmpty();
+            }
+
+            @Override
+            public String toString() {
+                return builds.size() + " builds of " + name + " to finish";
+            }
+        }, timeout);
+    }
+
     public Build getLastBuild() {
         return new Build(this, "lastBuild");
     }
@@ -286,7 +402,7 @@ public class Job extends ContainerPageObject {
     }
 
     public int getNextBuildNumber() {
-        return getJson().get("nextBuildNumber").intValue();
+        return getJsonTree("nextBuildNumber").get("nextBuildNumber").intValue();
     }
 
     public Workspace getWorkspace() {
@@ -53,7 +53,7 @@ public class MatrixProject extends Job {
 
     public List<MatrixConfiguration> getConfigurations() {
         List<MatrixConfiguration> r = new ArrayList<>();
-        for (JsonNode n : getJson().get("activeConfigurations")) {
+        for (JsonNode n : getJsonTree("activeConfigurations[name]").get("activeConfigurations")) {
             r.add(getConfiguration(n.get("name").asText()));
         }
         return r;
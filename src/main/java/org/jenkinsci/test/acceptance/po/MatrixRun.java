@@ -13,7 +13,7 @@ public class MatrixRun extends Build {
     }
 
     public boolean exists() {
-        return getJson().get("number").asInt() == build.getJson().get("number").asInt();
+        return getNumber() == build.getNumber();
     }
 
     public MatrixConfiguration getConfiguration() {
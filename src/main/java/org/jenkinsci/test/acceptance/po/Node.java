@@ -25,7 +25,12 @@ package org.jenkinsci.test.acceptance.po;
 
 import com.google.inject.Injector;
 
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 
 /**
  * Common base for Jenkins and Slave.
@@ -52,6 +57,33 @@ public abstract class Node extends ContainerPageObject {
         return find(by.css("h2 + pre")).getText().replaceAll("^Result: ", "");
     }
 
+    /**
+     * Runs the script through the "scriptText" end point in a single request,
+     * without visiting the script console.
+     *
+     * @param script Groovy script, sent as is.
+     * @return Output of the script.
+     */
+    public String runScriptText(String script) {
+        URL url = url("scriptText");
+        try {
+            HttpURLConnection con = post(url, "script=" + URLEncoder.encode(script, "UTF-8"));
+            if (con.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new AssertionError("Script failed with " + con.getResponseCode() + ": " + con.getResponseMessage());
+            }
+            return IOUtils.toString(con.getInputStream(), "UTF-8");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to run script at " + url, e);
+        }
+    }
+
+    /**
+     * Like {@link #runScriptText(String)}, with the script being a {@link String#format(String, Object...)} template.
+     */
+    public String runScriptText(String script, Object... args) {
+        return runScriptText(String.format(script, args));
+    }
+
     public BuildHistory getBuildHistory() {
         return new BuildHistory(this);
     }
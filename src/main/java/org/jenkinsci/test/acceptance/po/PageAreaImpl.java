@@ -1,8 +1,11 @@
 package org.jenkinsci.test.acceptance.po;
 
+import org.jenkinsci.test.acceptance.selenium.FormBatch;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 
+import java.util.concurrent.Callable;
+
 /**
  * Special kind of page object that maps to a portion of a page with multiple INPUT controls.
  * <p/>
@@ -87,4 +90,25 @@ public abstract class PageAreaImpl extends CapybaraPortingLayerImpl implements P
     public Control control(By selector) {
         return new Control(injector, selector);
     }
+
+    /**
+     * Reads the values of all the form controls in this page area in one go, keyed by their relative path.
+     */
+    public FormSnapshot snapshot() {
+        return page.snapshot().under(path);
+    }
+
+    /**
+     * Runs the body with the form writes of its {@link Control}s {@linkplain FormBatch batched},
+     * so that filling in many fields of this area costs a single script call.
+     */
+    public <T> T batch(Callable<T> body) {
+        try {
+            return injector.getInstance(FormBatch.class).apply(body);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
 }
@@ -54,6 +54,13 @@ public abstract class PageObject extends CapybaraPortingLayerImpl {
         return injector.getInstance(Jenkins.class);
     }
 
+    /**
+     * Reads the values of all the form controls in the current page in one go.
+     */
+    public FormSnapshot snapshot() {
+        return FormSnapshot.take(driver);
+    }
+
     /**
      * Visits the top page of this object.
      */
@@ -44,14 +44,14 @@ public class Plugin extends ContainerPageObject {
         this.manager = manager;
 
         try {
-            getJson();
+            getJsonTree("version");
         } catch (Exception ex) {
             throw new IllegalArgumentException(name + " plugin not installed", ex);
         }
     }
 
     public VersionNumber getVersion() {
-        return new VersionNumber(getJson().get("version").asText());
+        return new VersionNumber(getJsonTree("version").get("version").asText());
     }
 
     public boolean isNewerThan(String version) {
@@ -54,11 +54,11 @@ public abstract class Slave extends Node {
     }
 
     public boolean isOffline() {
-        return getJson().get("offline").asBoolean();
+        return getJsonTree("offline").get("offline").asBoolean();
     }
 
     public int getExecutorCount() {
-        return getJson().get("executors").size();
+        return getJsonTree("executors").get("executors").size();
     }
 
 
@@ -34,7 +34,7 @@ public class User extends ContainerPageObject {
     public User(Jenkins context, String name) {
         super(context, context.url("user/%s/", name));
 
-        JsonNode json = getJson();
+        JsonNode json = getJsonTree("id", "fullName", "property[address]");
         id = json.get("id").asText();
         fullName = json.get("fullName").asText();
         JsonNode property = json.get("property");
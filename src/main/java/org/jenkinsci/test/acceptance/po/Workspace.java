@@ -25,10 +25,18 @@ package org.jenkinsci.test.acceptance.po;
 
 import org.jenkinsci.test.acceptance.Matcher;
 
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+
 public class Workspace extends PageObject {
 
+    private final Job job;
+
     public Workspace(Job job) {
         super(job, job.url("ws"));
+        this.job = job;
     }
 
     public void wipeOut() {
@@ -37,11 +45,44 @@ public class Workspace extends PageObject {
         driver.switchTo().alert().accept();
     }
 
+    /**
+     * Checks the file exists in the workspace with a single HTTP request, without rendering the directory listing.
+     * <p/>
+     * Directories do not count.
+     */
+    public boolean contains(String file) {
+        if (file.endsWith("/")) {
+            return false;
+        }
+        try {
+            HttpURLConnection con = job.openConnection(job.url("ws/" + encodePath(file)));
+            con.setRequestMethod("HEAD");
+            // Jenkins redirects a directory to its listing, which ends with a slash
+            con.setInstanceFollowRedirects(false);
+            return con.getResponseCode() == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to check " + file + " in " + url, e);
+        }
+    }
+
+    /**
+     * Escapes each segment of a relative path, keeping the slashes that separate them.
+     */
+    private static String encodePath(String path) throws UnsupportedEncodingException {
+        String[] segments = path.split("/", -1);
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) b.append('/');
+            // URLEncoder is meant for forms, where space becomes '+'
+            b.append(URLEncoder.encode(segments[i], "UTF-8").replace("+", "%20"));
+        }
+        return b.toString();
+    }
+
     public static Matcher<Job> workspaceContains(final String file) {
-        return new Matcher<Job>("%s in job workspace", file) {
+        return new Matcher<Job>("file %s in job workspace", file) {
             @Override public boolean matchesSafely(Job job) {
-                job.getWorkspace().open();
-                return job.getElement(by.xpath("//table[@class='fileList']//a[text()='%s']", file)) != null;
+                return job.getWorkspace().contains(file);
             }
         };
     }
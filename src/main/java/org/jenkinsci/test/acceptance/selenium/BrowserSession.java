@@ -0,0 +1,228 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.jenkinsci.test.acceptance.guice.TestCleaner;
+import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP access to Jenkins as the user logged in the browser.
+ *
+ * <p>
+ * Requests go through a pooled HTTP client with keep-alive and gzip, so that API calls polled in a loop, such as
+ * the JSON of a build in progress, do not pay for a new connection every time. The cookies of the browser are read
+ * over WebDriver only when the page has changed since they were last read, as that is when the login state can
+ * change.
+ *
+ * <p>
+ * If the <tt>JSON_CACHE_TTL</tt> environment variable gives a number of milliseconds, JSON read within that time
+ * from the same URL is reused, and identical reads issued concurrently share one request. Anything that can change
+ * the state of Jenkins discards the cache: a click or navigation in the browser, and {@link #invalidate()}, which
+ * page objects call when they submit over HTTP.
+ *
+ * @see org.jenkinsci.test.acceptance.po.ContainerPageObject#getJson(String)
+ */
+@TestScope
+public class BrowserSession implements Closeable {
+    private final WebDriver driver;
+
+    private final PageGeneration generation;
+
+    private final CloseableHttpClient client;
+
+    private String cookies;
+
+    private long cookiesGeneration = -1;
+
+    private final long ttl;
+
+    private final ConcurrentMap<String, CachedJson> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Advanced by {@link #invalidate()} so that reads in flight at that time are not reused.
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    @Inject
+    public BrowserSession(WebDriver driver, PageGeneration generation, TestCleaner cleaner) {
+        this.driver = driver;
+        this.generation = generation;
+        String ttl = System.getenv("JSON_CACHE_TTL");
+        this.ttl = ttl == null || ttl.isEmpty() ? 0 : Long.parseLong(ttl);
+
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setDefaultMaxPerRoute(10);
+        this.client = HttpClients.custom()
+                .setConnectionManager(connections)
+                .disableCookieManagement() // the browser is in charge of the session
+                .build();
+        cleaner.addTask(this);
+    }
+
+    /**
+     * Value of the <tt>Cookie</tt> header that carries the session of the browser.
+     */
+    public synchronized String getCookieHeader() {
+        long g = generation.current();
+        if (cookies == null || g != cookiesGeneration || !generation.isTracking()) {
+            Set<Cookie> all;
+            try {
+                all = driver.manage().getCookies();
+            } catch (WebDriverException e) {
+                if (cookies != null) {
+                    return cookies; // the browser is gone at the end of the test, but its session is still good
+                }
+                throw e;
+            }
+            StringBuilder b = new StringBuilder();
+            for (Cookie c : all) {
+                if (b.length() > 0) b.append("; ");
+                b.append(c.getName()).append('=').append(c.getValue());
+            }
+            cookies = b.toString();
+            cookiesGeneration = g;
+        }
+        return cookies;
+    }
+
+    /**
+     * Reads JSON, parsing it as it streams in.
+     *
+     * <p>
+     * The returned node may be shared with other callers when caching is on, so it must not be modified.
+     *
+     * @throws IOException if the server does not respond with 2xx.
+     */
+    public JsonNode getJson(final URL url, final ObjectMapper mapper) throws IOException {
+        if (ttl <= 0) {
+            return fetchJson(url, mapper);
+        }
+
+        String key = url.toExternalForm();
+        while (true) {
+            CachedJson c = cache.get(key);
+            if (c != null && c.isFresh()) {
+                return c.get(key);
+            }
+
+            CachedJson fresh = new CachedJson(new Callable<JsonNode>() {
+                @Override
+                public JsonNode call() throws IOException {
+                    return fetchJson(url, mapper);
+                }
+            });
+            if (c == null ? cache.putIfAbsent(key, fresh) == null : cache.replace(key, c, fresh)) {
+                fresh.task.run();
+                return fresh.get(key);
+            }
+            // someone else started the same read in the meantime
+        }
+    }
+
+    /**
+     * Discards cached JSON after something changed the state of Jenkins.
+     */
+    public void invalidate() {
+        writes.incrementAndGet();
+        cache.clear();
+    }
+
+    private JsonNode fetchJson(URL url, ObjectMapper mapper) throws IOException {
+        HttpGet get = new HttpGet(toUri(url));
+        String c = getCookieHeader();
+        if (!c.isEmpty()) {
+            get.setHeader("Cookie", c);
+        }
+
+        try (CloseableHttpResponse rsp = client.execute(get)) {
+            HttpEntity entity = rsp.getEntity();
+            int status = rsp.getStatusLine().getStatusCode();
+            if (status / 100 != 2 || entity == null) {
+                EntityUtils.consumeQuietly(entity);
+                throw new IOException("Server returned " + rsp.getStatusLine() + " for " + url);
+            }
+            try (InputStream in = entity.getContent()) {
+                return mapper.readTree(in);
+            }
+        }
+    }
+
+    /**
+     * {@link URL} tolerates the brackets and braces of <tt>tree=</tt> queries while {@link URI} does not.
+     */
+    private static URI toUri(URL url) throws IOException {
+        String s = url.toExternalForm();
+        int q = s.indexOf('?');
+        if (q >= 0) {
+            s = s.substring(0, q) + s.substring(q).replace("[", "%5B").replace("]", "%5D")
+                    .replace("{", "%7B").replace("}", "%7D");
+        }
+        try {
+            return new URI(s);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URL " + url, e);
+        }
+    }
+
+    private final class CachedJson {
+        private final FutureTask<JsonNode> task;
+        private final long started = System.currentTimeMillis();
+        private final long startedGeneration = generation.current();
+        private final long startedWrites = writes.get();
+
+        private CachedJson(Callable<JsonNode> fetch) {
+            this.task = new FutureTask<>(fetch);
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - started < ttl
+                    && generation.current() == startedGeneration
+                    && writes.get() == startedWrites;
+        }
+
+        private JsonNode get(String key) throws IOException {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                throw (IOException) new InterruptedIOException().initCause(e);
+            } catch (ExecutionException e) {
+                cache.remove(key, this); // do not remember failures
+                Throwable t = e.getCause();
+                if (t instanceof IOException) throw (IOException) t;
+                if (t instanceof RuntimeException) throw (RuntimeException) t;
+                throw new IOException(t);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
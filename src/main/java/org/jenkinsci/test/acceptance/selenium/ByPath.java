@@ -0,0 +1,71 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Finds elements by the "path" attribute added by the form-element-path plugin.
+ *
+ * <p>
+ * When searching the whole page, the lookup is answered from an index of all the paths that is kept in the page
+ * (see <tt>path-index.js</tt>), so that page areas doing dozens of lookups on a large configuration page do not
+ * scan the whole DOM every time. When nothing is found there, or when searching inside an element, this falls
+ * back to the equivalent CSS selector, which also lets the implicit wait of the driver kick in.
+ *
+ * @see org.jenkinsci.test.acceptance.ByFactory#path(String, Object...)
+ */
+public class ByPath extends By {
+    /*package*/ static final String INDEX_SCRIPT;
+
+    private static final String LOOKUP_SCRIPT;
+
+    static {
+        try {
+            INDEX_SCRIPT = IOUtils.toString(ByPath.class.getResourceAsStream("path-index.js"));
+            LOOKUP_SCRIPT = INDEX_SCRIPT + "\nreturn lookupPath(arguments[0]);";
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String path;
+
+    private final By fallback;
+
+    public ByPath(String path) {
+        this.path = path;
+        this.fallback = By.cssSelector(String.format("[path='%s']", path));
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<WebElement> findElements(SearchContext context) {
+        if (context instanceof JavascriptExecutor) {
+            try {
+                List<WebElement> found = (List<WebElement>) ((JavascriptExecutor) context).executeScript(LOOKUP_SCRIPT, path);
+                if (found != null && !found.isEmpty()) {
+                    return found;
+                }
+            } catch (WebDriverException e) {
+                // fall back to the regular lookup
+            }
+        }
+        return fallback.findElements(context);
+    }
+
+    @Override
+    public String toString() {
+        return "By.path: " + path;
+    }
+}
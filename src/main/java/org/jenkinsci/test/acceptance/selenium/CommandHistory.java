@@ -0,0 +1,100 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Remembers the last few things the test did with the browser, to tell what led to a failure.
+ *
+ * <p>
+ * Only the operations {@link EventFiringWebDriver} reports are recorded: navigation, lookups, clicks,
+ * typing, and scripts.
+ *
+ * @see org.jenkinsci.test.acceptance.junit.FailureCapture
+ */
+@TestScope
+public class CommandHistory extends AbstractWebDriverEventListener {
+    private static final int SIZE = 50;
+
+    private static final int MAX_SCRIPT = 200;
+
+    private final Deque<String> commands = new ArrayDeque<>();
+
+    private volatile WebDriver driver;
+
+    public void attach(EventFiringWebDriver driver) {
+        driver.register(this);
+        this.driver = driver;
+    }
+
+    /**
+     * The browser of the current test, or null if the test has not used any.
+     */
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Recent commands, oldest first.
+     */
+    public synchronized List<String> recent() {
+        return new ArrayList<>(commands);
+    }
+
+    private synchronized void add(String command) {
+        if (commands.size() == SIZE) {
+            commands.removeFirst();
+        }
+        commands.addLast(System.currentTimeMillis() + " " + command);
+    }
+
+    @Override
+    public void beforeNavigateTo(String url, WebDriver driver) {
+        add("navigate " + url);
+    }
+
+    @Override
+    public void beforeNavigateBack(WebDriver driver) {
+        add("back");
+    }
+
+    @Override
+    public void beforeNavigateForward(WebDriver driver) {
+        add("forward");
+    }
+
+    @Override
+    public void beforeFindBy(By by, WebElement element, WebDriver driver) {
+        add("find " + by);
+    }
+
+    @Override
+    public void beforeClickOn(WebElement element, WebDriver driver) {
+        add("click " + element);
+    }
+
+    @Override
+    public void beforeChangeValueOf(WebElement element, WebDriver driver) {
+        add("type into " + element);
+    }
+
+    @Override
+    public void beforeScript(String script, WebDriver driver) {
+        String s = script.replaceAll("\\s+", " ");
+        add("script " + (s.length() > MAX_SCRIPT ? s.substring(0, MAX_SCRIPT) + "..." : s));
+    }
+
+    @Override
+    public void onException(Throwable throwable, WebDriver driver) {
+        add("failed: " + throwable.getClass().getSimpleName());
+    }
+}
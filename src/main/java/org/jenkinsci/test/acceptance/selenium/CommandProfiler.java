@@ -0,0 +1,320 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.ClassUtils;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Times every WebDriver command and attributes it to the page object method that issued it,
+ * so that we can see which page objects dominate the time spent in the browser.
+ *
+ * <p>
+ * The driver is wrapped in a proxy, and so are the elements, navigation, and the other objects it hands out,
+ * as most element commands such as {@link WebElement#getText()} have no
+ * {@link org.openqa.selenium.support.events.WebDriverEventListener} hook. Each command is attributed to the
+ * first frame of the stack that is neither in Selenium nor in the generic parts of the harness.
+ * Transferred bytes are estimated from the size of the arguments and the results.
+ *
+ * <p>
+ * Profiling is off unless the <tt>WEBDRIVER_PROFILE</tt> environment variable is set. The report is written
+ * when the {@link org.jenkinsci.test.acceptance.guice.World} goes away, to the file it names or to
+ * <tt>target/webdriver-profile.txt</tt> if it is empty. Each surefire fork appends its own section.
+ */
+@Singleton
+public class CommandProfiler implements Closeable {
+
+    /**
+     * Frames in these classes are never the caller we are looking for.
+     */
+    private static final String[] GENERIC = {
+            "java.", "javax.", "sun.", "com.sun.", "jdk.", "org.openqa.", "com.google.",
+            "org.jenkinsci.test.acceptance.selenium.",
+            "org.jenkinsci.test.acceptance.po.CapybaraPortingLayerImpl",
+            "org.jenkinsci.test.acceptance.po.Control",
+    };
+
+    /**
+     * Methods that do not talk to the browser.
+     */
+    private static final Set<String> LOCAL = new HashSet<>(Arrays.asList(
+            "getWrappedDriver", "getWrappedElement", "manage", "navigate", "switchTo", "timeouts", "window", "logs", "ime"
+    ));
+
+    private final Map<String, Entry> byCaller = new HashMap<>();
+    private final Map<String, Entry> byCommand = new HashMap<>();
+
+    /**
+     * Null if profiling is off.
+     */
+    private final File report;
+
+    @Inject
+    public CommandProfiler(WorldCleaner cleaner) {
+        String report = System.getenv("WEBDRIVER_PROFILE");
+        this.report = report == null ? null : new File(report.isEmpty() ? "target/webdriver-profile.txt" : report);
+        if (this.report != null) {
+            cleaner.addTask(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return report != null;
+    }
+
+    /**
+     * Appends the report to the file.
+     */
+    @Override
+    public void close() {
+        report.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(new FileOutputStream(report, true), false, "UTF-8")) {
+            writeReport(out);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write " + report, e);
+        }
+    }
+
+    /**
+     * Wraps the driver so that its commands are recorded.
+     */
+    public WebDriver wrap(WebDriver driver) {
+        return (WebDriver) proxy(driver);
+    }
+
+    private Object proxy(Object target) {
+        List<Class<?>> interfaces = ClassUtils.getAllInterfaces(target.getClass());
+        return Proxy.newProxyInstance(
+                getClass().getClassLoader(), interfaces.toArray(new Class[interfaces.size()]), new Handler(target)
+        );
+    }
+
+    private final class Handler implements InvocationHandler {
+        private final Object target;
+
+        private Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            args = unwrap(args);
+            if (method.getDeclaringClass() == Object.class) {
+                return call(method, args); // equals, hashCode, toString
+            }
+            if (LOCAL.contains(method.getName())) {
+                return wrapResult(method, call(method, args));
+            }
+
+            long start = System.nanoTime();
+            Object r = null;
+            try {
+                r = call(method, args);
+                return wrapResult(method, r);
+            } finally {
+                record(callSite(), method.getDeclaringClass().getSimpleName() + '.' + method.getName(),
+                        System.nanoTime() - start, sizeOf(args) + sizeOf(r));
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Hands the real objects to the driver when proxies are passed back to it, e.g. as script arguments.
+     */
+    private static Object[] unwrap(Object[] args) {
+        if (args == null) return null;
+        Object[] r = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            r[i] = unwrap(args[i]);
+        }
+        return r;
+    }
+
+    private static Object unwrap(Object o) {
+        if (o != null && Proxy.isProxyClass(o.getClass())) {
+            InvocationHandler h = Proxy.getInvocationHandler(o);
+            if (h instanceof Handler) {
+                return ((Handler) h).target;
+            }
+        }
+        if (o instanceof Object[]) {
+            return unwrap((Object[]) o);
+        }
+        if (o instanceof List) {
+            List<Object> r = new ArrayList<>();
+            for (Object e : (List<?>) o) {
+                r.add(unwrap(e));
+            }
+            return r;
+        }
+        if (o instanceof Map) {
+            Map<Object, Object> r = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+                r.put(e.getKey(), unwrap(e.getValue()));
+            }
+            return r;
+        }
+        return o;
+    }
+
+    private Object wrapResult(Method method, Object r) {
+        if (r == null) return null;
+        // the driver itself is handed out again by switchTo().frame() and the like
+        if (r instanceof WebElement || r instanceof Alert
+                || WebDriver.class.isAssignableFrom(method.getReturnType())
+                || method.getReturnType().getDeclaringClass() == WebDriver.class) {
+            return proxy(r);
+        }
+        if (r instanceof List) {
+            List<Object> l = new ArrayList<>();
+            for (Object e : (List<?>) r) {
+                l.add(e instanceof WebElement ? proxy(e) : e);
+            }
+            return l;
+        }
+        return r;
+    }
+
+    private static String callSite() {
+        OUTER:
+        for (StackTraceElement e : new Throwable().getStackTrace()) {
+            String c = e.getClassName();
+            if (c.equals(CommandProfiler.class.getName()) || c.startsWith(CommandProfiler.class.getName() + '$')) continue;
+            for (String g : GENERIC) {
+                if (c.startsWith(g)) continue OUTER;
+            }
+            return c.substring(c.lastIndexOf('.') + 1) + '.' + e.getMethodName();
+        }
+        return "unknown";
+    }
+
+    /**
+     * Rough size of the data sent over the wire for the object.
+     */
+    private static long sizeOf(Object o) {
+        if (o == null) return 0;
+        if (o instanceof CharSequence) return ((CharSequence) o).length();
+        if (o instanceof byte[]) return ((byte[]) o).length;
+        if (o instanceof Object[]) return sizeOf(Arrays.asList((Object[]) o));
+        if (o instanceof Collection) {
+            long n = 0;
+            for (Object e : (Collection<?>) o) {
+                n += sizeOf(e);
+            }
+            return n;
+        }
+        if (o instanceof Map) {
+            long n = 0;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+                n += sizeOf(e.getKey()) + sizeOf(e.getValue());
+            }
+            return n;
+        }
+        if (o instanceof WebElement) return 64; // element reference
+        return 8;
+    }
+
+    private synchronized void record(String caller, String command, long nanos, long bytes) {
+        add(byCaller, caller, command, nanos, bytes);
+        add(byCommand, command, caller, nanos, bytes);
+    }
+
+    private static void add(Map<String, Entry> entries, String key, String detail, long nanos, long bytes) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            entries.put(key, e = new Entry(key));
+        }
+        e.count++;
+        e.nanos += nanos;
+        e.bytes += bytes;
+        Integer n = e.details.get(detail);
+        e.details.put(detail, n == null ? 1 : n + 1);
+    }
+
+    /**
+     * Writes callers and commands ordered by the total time spent in the browser.
+     */
+    public synchronized void writeReport(PrintStream out) {
+        out.println("=== WebDriver profile of " + ManagementFactory.getRuntimeMXBean().getName());
+        writeTable(out, byCaller, "caller / most frequent command");
+        out.println();
+        writeTable(out, byCommand, "command / most frequent caller");
+    }
+
+    private static void writeTable(PrintStream out, Map<String, Entry> entries, String title) {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Long.compare(o2.nanos, o1.nanos);
+            }
+        });
+
+        out.printf("%10s %9s %12s  %s%n", "total ms", "commands", "~bytes", title);
+        for (Entry e : sorted) {
+            out.printf("%10d %9d %12d  %s%n", e.nanos / 1000000, e.count, e.bytes, e.key);
+            out.printf("%33s  %s%n", "", e.mostFrequent());
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(CommandProfiler.class.getName());
+
+    private static final class Entry {
+        private final String key;
+        private int count;
+        private long nanos;
+        private long bytes;
+        private final Map<String, Integer> details = new HashMap<>();
+
+        private Entry(String key) {
+            this.key = key;
+        }
+
+        private String mostFrequent() {
+            String best = null;
+            int max = 0;
+            for (Map.Entry<String, Integer> d : details.entrySet()) {
+                if (d.getValue() > max) {
+                    best = d.getKey();
+                    max = d.getValue();
+                }
+            }
+            return best + " (" + max + "x)";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.jenkinsci.test.acceptance.docker.Docker;
+import org.jenkinsci.test.acceptance.docker.fixtures.FirefoxContainer;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.jenkinsci.utils.process.CommandBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Browsers running in docker containers on this machine, for <tt>BROWSER=docker</tt>.
+ *
+ * <p>
+ * Up to <tt>DOCKER_BROWSERS</tt> (1 by default) {@link FirefoxContainer}s are started as they are needed,
+ * and new sessions are spread over them round robin. Each surefire fork has its own containers, so the number
+ * of browsers grows with the number of forks rather than being limited to one desktop.
+ * Combine with <tt>BROWSER_REUSE</tt> to keep the sessions warm between tests, see {@link WebDriverPool}.
+ *
+ * <p>
+ * Containers share the network of the host, so that the browsers can reach Jenkins on localhost.
+ */
+@Singleton
+public class DockerBrowserGrid implements Closeable {
+    private final Docker docker;
+
+    private final int size;
+
+    private final List<FirefoxContainer> containers = new ArrayList<>();
+
+    private final List<URL> endpoints = new ArrayList<>();
+
+    private int next;
+
+    @Inject
+    public DockerBrowserGrid(WorldCleaner cleaner, Docker docker) {
+        this.docker = docker;
+        String n = System.getenv("DOCKER_BROWSERS");
+        this.size = n == null ? 1 : Integer.parseInt(n);
+        cleaner.addTask(this);
+    }
+
+    /**
+     * Picks the WebDriver endpoint for the next session, starting a container if there are not enough yet.
+     */
+    public synchronized URL next() throws IOException {
+        if (endpoints.size() < size) {
+            endpoints.add(start());
+            return endpoints.get(endpoints.size() - 1);
+        }
+        next = (next + 1) % endpoints.size();
+        return endpoints.get(next);
+    }
+
+    private URL start() throws IOException {
+        int port;
+        try (ServerSocket s = new ServerSocket(0)) {
+            port = s.getLocalPort();
+        }
+
+        FirefoxContainer c = docker.start(FirefoxContainer.class,
+                new CommandBuilder("--net=host"), new CommandBuilder("-port", port));
+        containers.add(c);
+
+        URL hub = new URL("http://127.0.0.1:" + port + "/wd/hub");
+        awaitReady(new URL(hub + "/status"));
+        return hub;
+    }
+
+    private void awaitReady(URL status) throws IOException {
+        long end = System.currentTimeMillis() + 60000;
+        while (true) {
+            try {
+                HttpURLConnection con = (HttpURLConnection) status.openConnection();
+                if (con.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            if (System.currentTimeMillis() > end) {
+                throw new IOException("Selenium server did not come up at " + status);
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                throw new IOException("Interrupted while waiting for " + status, e);
+            }
+        }
+    }
+
+    /**
+     * Stops all the containers.
+     */
+    @Override
+    public synchronized void close() {
+        for (FirefoxContainer c : containers) {
+            c.close();
+        }
+        containers.clear();
+        endpoints.clear();
+    }
+}
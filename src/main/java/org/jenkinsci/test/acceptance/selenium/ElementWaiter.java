@@ -0,0 +1,113 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+
+/**
+ * Waits for an element to appear from within the browser.
+ *
+ * <p>
+ * The page is watched with a MutationObserver installed through {@link JavascriptExecutor#executeAsyncScript(String, Object...)},
+ * so the wait resolves as soon as a matching visible element appears, and costs a single round trip
+ * instead of a WebDriver query every time the condition is retried.
+ *
+ * <p>
+ * Only XPath, CSS, and {@link ByPath} selectors can be evaluated in the browser. For anything else, and for drivers
+ * that cannot run the script, {@link #waitFor(WebDriver, By, long, boolean)} throws
+ * {@link UnsupportedOperationException} and callers are expected to fall back to polling.
+ *
+ * @see #SCRIPT_TIMEOUT
+ */
+public class ElementWaiter {
+    /**
+     * Longest time a single script is allowed to wait. Longer waits are split into several script calls
+     * so that the script timeout of the driver is never hit.
+     */
+    public static final long CHUNK = 10000;
+
+    /**
+     * Script timeout to configure on the driver, comfortably above {@link #CHUNK}.
+     */
+    public static final long SCRIPT_TIMEOUT = 30000;
+
+    /**
+     * Implicit wait to configure on the driver, scaled by {@link org.jenkinsci.test.acceptance.utils.ElasticTime}.
+     * Code that turns it off for a moment puts this value back, so custom driver providers should use it too.
+     */
+    public static final long IMPLICIT_WAIT = 1000;
+
+    private static final String SCRIPT;
+
+    static {
+        try {
+            SCRIPT = ByPath.INDEX_SCRIPT + "\n" + IOUtils.toString(ElementWaiter.class.getResourceAsStream("wait-for-element.js"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Checks if the selector can be evaluated in the browser.
+     */
+    public static boolean isSupported(By selector) {
+        return kindOf(selector) != null;
+    }
+
+    /**
+     * Waits until an element matching the selector is visible.
+     *
+     * <p>
+     * Visibility is only approximated in the browser, so callers who need WebDriver's exact notion of
+     * visibility should still check {@link WebElement#isDisplayed()} on the result.
+     *
+     * @param last
+     *      Once there is a visible match, return the last matching element rather than the visible one.
+     * @return null if no element appeared in time.
+     * @throws UnsupportedOperationException
+     *      if the selector or the driver does not support waiting in the browser.
+     */
+    public WebElement waitFor(WebDriver driver, By selector, long timeoutMs, boolean last) {
+        String kind = kindOf(selector);
+        if (kind == null || !(driver instanceof JavascriptExecutor)) {
+            throw new UnsupportedOperationException("Can not wait for " + selector + " in browser");
+        }
+
+        String expression = selector instanceof ByPath
+                ? ((ByPath) selector).getPath()
+                : selector.toString().substring(selector.toString().indexOf(": ") + 2);
+        long endTime = System.currentTimeMillis() + timeoutMs;
+        try {
+            while (true) {
+                long remaining = Math.min(CHUNK, endTime - System.currentTimeMillis());
+                Object e = ((JavascriptExecutor) driver).executeAsyncScript(
+                        SCRIPT, kind, expression, Math.max(0, remaining), last
+                );
+                if (e instanceof WebElement) {
+                    return (WebElement) e;
+                }
+                if (System.currentTimeMillis() >= endTime) {
+                    return null;
+                }
+            }
+        } catch (WebDriverException e) {
+            // Navigation in the middle of the wait, old browser, or an invalid expression
+            UnsupportedOperationException x = new UnsupportedOperationException("Can not wait for " + selector + " in browser");
+            x.initCause(e);
+            throw x;
+        }
+    }
+
+    private static String kindOf(By selector) {
+        if (selector instanceof ByPath) return "path";
+        String s = selector.toString();
+        if (s.startsWith("By.xpath: ")) return "xpath";
+        if (s.startsWith("By.selector: ") || s.startsWith("By.cssSelector: ")) return "css";
+        return null;
+    }
+}
@@ -0,0 +1,306 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.inject.Inject;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.apache.commons.lang3.ClassUtils;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Queues form writes and applies them together in a single script call.
+ *
+ * <p>
+ * While {@linkplain #apply(Callable) active}, {@link org.jenkinsci.test.acceptance.po.Control}s located by path
+ * offer their value assignments here instead of interacting with the element one at a time. The queue is flushed
+ * before any other command goes through the driver, including reads on elements found earlier, so that the page
+ * looks the same to the rest of the code as if the writes were done right away. Writes the script can not handle,
+ * e.g. because the element is not a plain form control, are done natively in their turn. If a write fails,
+ * the exception points at the code that queued it rather than at whatever flushed the queue.
+ *
+ * <p>
+ * Nothing is batched when the WebDriver is not created by {@link org.jenkinsci.test.acceptance.FallbackConfig},
+ * as the queue could not be flushed in time.
+ */
+@TestScope
+public class FormBatch extends AbstractWebDriverEventListener {
+    private static final String SCRIPT;
+
+    static {
+        try {
+            SCRIPT = ByPath.INDEX_SCRIPT + "\n"
+                    + IOUtils.toString(FormBatch.class.getResourceAsStream("typing.js")) + "\n"
+                    + IOUtils.toString(FormBatch.class.getResourceAsStream("form-batch.js"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final List<Write> pending = new ArrayList<>();
+
+    private final PageGeneration generation;
+
+    private WebDriver driver;
+
+    private boolean active;
+
+    private boolean flushing;
+
+    @Inject
+    public FormBatch(PageGeneration generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Starts watching the driver for operations that need the queue flushed.
+     */
+    public void attach(EventFiringWebDriver driver) {
+        driver.register(this);
+        this.driver = driver;
+    }
+
+    /**
+     * Wraps the driver so that the queue is also flushed before commands that have no listener hook,
+     * such as reading an attribute of an element.
+     */
+    public WebDriver wrap(WebDriver driver) {
+        return (WebDriver) proxy(driver);
+    }
+
+    private Object proxy(Object target) {
+        List<Class<?>> interfaces = ClassUtils.getAllInterfaces(target.getClass());
+        return Proxy.newProxyInstance(
+                getClass().getClassLoader(), interfaces.toArray(new Class[interfaces.size()]), new Flusher(target)
+        );
+    }
+
+    private final class Flusher implements InvocationHandler {
+        private final Object target;
+
+        private Flusher(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() != Object.class) {
+                flush();
+            }
+            Object r;
+            try {
+                r = method.invoke(target, (Object[]) unwrap(args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (r instanceof WebElement || r instanceof WebDriver || r instanceof Alert
+                    || method.getReturnType().getDeclaringClass() == WebDriver.class) {
+                return proxy(r);
+            }
+            if (r instanceof List) {
+                List<Object> l = new ArrayList<>();
+                for (Object e : (List<?>) r) {
+                    l.add(e instanceof WebElement ? proxy(e) : e);
+                }
+                return l;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Hands the real objects to the driver when proxies are passed back to it, e.g. as script arguments.
+     */
+    private static Object unwrap(Object o) {
+        if (o != null && Proxy.isProxyClass(o.getClass()) && Proxy.getInvocationHandler(o) instanceof Flusher) {
+            return ((Flusher) Proxy.getInvocationHandler(o)).target;
+        }
+        if (o instanceof Object[]) {
+            Object[] a = (Object[]) o;
+            Object[] r = new Object[a.length];
+            for (int i = 0; i < a.length; i++) {
+                r[i] = unwrap(a[i]);
+            }
+            return r;
+        }
+        if (o instanceof List) {
+            List<Object> r = new ArrayList<>();
+            for (Object e : (List<?>) o) {
+                r.add(unwrap(e));
+            }
+            return r;
+        }
+        if (o instanceof Map) {
+            Map<Object, Object> r = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+                r.put(e.getKey(), unwrap(e.getValue()));
+            }
+            return r;
+        }
+        return o;
+    }
+
+    /**
+     * Runs the body with form writes batched, and applies whatever is left in the queue at the end.
+     */
+    public <T> T apply(Callable<T> body) throws Exception {
+        if (active || driver == null) {
+            return body.call();
+        }
+
+        active = true;
+        try {
+            T v = body.call();
+            flush();
+            return v;
+        } finally {
+            active = false;
+            pending.clear();
+        }
+    }
+
+    /**
+     * Queues a write.
+     *
+     * @param paths
+     *      Candidate paths of the element. The first one with a visible element wins.
+     * @param action
+     *      "set", "check", or "select".
+     * @param fallback
+     *      Performs the write natively if the script can not.
+     * @return false if batching is not active, in which case the caller should perform the write right away.
+     */
+    public boolean offer(List<String> paths, String action, Object value, Runnable fallback) {
+        if (!active || flushing || paths == null || paths.isEmpty()) {
+            return false;
+        }
+        pending.add(new Write(paths, action, value, fallback));
+        return true;
+    }
+
+    /**
+     * Applies all queued writes.
+     */
+    public void flush() {
+        if (flushing || pending.isEmpty()) {
+            return;
+        }
+
+        flushing = true;
+        try {
+            while (!pending.isEmpty()) {
+                List<Write> writes = new ArrayList<>(pending);
+                pending.clear();
+
+                List<Object> args = new ArrayList<>();
+                for (Write w : writes) {
+                    args.add(Arrays.asList(w.paths, w.action, w.value));
+                }
+                int failed = ((Number) ((JavascriptExecutor) driver).executeScript(SCRIPT, args)).intValue();
+                for (Write w : writes.subList(0, failed < 0 ? writes.size() : failed)) {
+                    if (!w.action.equals("set")) {
+                        // clicked or changed from the script, which the listeners do not see
+                        generation.advance();
+                        break;
+                    }
+                }
+                if (failed < 0) {
+                    return;
+                }
+
+                // do this one natively, then continue with the rest
+                pending.addAll(writes.subList(failed + 1, writes.size()));
+                Write w = writes.get(failed);
+                try {
+                    w.fallback.run();
+                } catch (RuntimeException x) {
+                    throw w.failed(x);
+                }
+            }
+        } finally {
+            flushing = false;
+        }
+    }
+
+    @Override
+    public void beforeNavigateTo(String url, WebDriver driver) {
+        flush();
+    }
+
+    @Override
+    public void beforeNavigateBack(WebDriver driver) {
+        flush();
+    }
+
+    @Override
+    public void beforeNavigateForward(WebDriver driver) {
+        flush();
+    }
+
+    @Override
+    public void beforeFindBy(By by, WebElement element, WebDriver driver) {
+        flush();
+    }
+
+    @Override
+    public void beforeClickOn(WebElement element, WebDriver driver) {
+        flush();
+    }
+
+    @Override
+    public void beforeChangeValueOf(WebElement element, WebDriver driver) {
+        flush();
+    }
+
+    @Override
+    public void beforeScript(String script, WebDriver driver) {
+        flush();
+    }
+
+    private static final class Write {
+        private final List<String> paths;
+        private final String action;
+        private final Object value;
+        private final Runnable fallback;
+
+        /**
+         * Where the write was queued.
+         */
+        private final Throwable origin = new Throwable();
+
+        private Write(List<String> paths, String action, Object value, Runnable fallback) {
+            this.paths = paths;
+            this.action = action;
+            this.value = value;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Makes the failure point at the code that queued the write, keeping the place it was flushed from for reference.
+         */
+        private RuntimeException failed(RuntimeException x) {
+            Throwable flushed = new Throwable("Failed to " + action + " " + paths + " when flushing the form writes");
+            flushed.setStackTrace(x.getStackTrace());
+            x.setStackTrace(origin.getStackTrace());
+            x.addSuppressed(flushed);
+            return x;
+        }
+    }
+}
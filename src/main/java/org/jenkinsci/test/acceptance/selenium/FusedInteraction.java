@@ -0,0 +1,81 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interacts with form elements in a single script call.
+ *
+ * <p>
+ * A native click costs a round trip for {@link SanityChecker}, one for {@link Scroller}, and one for the click itself.
+ * This does all of it, including the check that the element is not covered by something else, in one script.
+ * Only checkboxes, radio buttons, and plain text fields are handled this way. Text is typed with the focus, key,
+ * input, change and blur events the browser would fire. For anything else, including fields with auto-completion,
+ * or when the element can not receive the interaction, the methods return false and the caller is expected to use the native
+ * interaction, which goes through the listeners as usual.
+ */
+public class FusedInteraction {
+    private static final String SCRIPT;
+
+    static {
+        try {
+            String sanity = IOUtils.toString(FusedInteraction.class.getResourceAsStream("sanity-checker.js"));
+            SCRIPT = IOUtils.toString(FusedInteraction.class.getResourceAsStream("typing.js")) + "\n"
+                    + IOUtils.toString(FusedInteraction.class.getResourceAsStream("fused-interaction.js"))
+                    .replace("/*SANITY*/", sanity);
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Sets the state of a checkbox or a radio button.
+     *
+     * @param generation
+     *      Advanced if the element is clicked, as the click does not go through the driver's listeners.
+     *      May be null.
+     */
+    public static boolean check(WebDriver driver, WebElement e, boolean state, PageGeneration generation) {
+        List<?> result = act(driver, e, "check", state);
+        if (result == null) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(result.get(1)) && generation != null) {
+            generation.advance();
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the value of a text field, firing the events of typing it.
+     */
+    public static boolean set(WebDriver driver, WebElement e, String text) {
+        return text != null && act(driver, e, "set", text) != null;
+    }
+
+    /**
+     * @return the result of the script if the interaction is done, or null if the caller needs to do it natively.
+     */
+    private static List<?> act(WebDriver driver, WebElement e, String action, Object value) {
+        if (!(driver instanceof JavascriptExecutor)) return null;
+
+        List<?> result;
+        try {
+            result = (List<?>) ((JavascriptExecutor) driver).executeScript(SCRIPT, e, action, value);
+        } catch (WebDriverException x) {
+            return null;
+        }
+
+        if ("insane".equals(result.get(0))) {
+            SanityChecker.report((List<?>) result.get(1), driver);
+            return null; // a problem that is not worth reporting
+        }
+        return "done".equals(result.get(0)) ? result : null;
+    }
+}
@@ -0,0 +1,77 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts changes of the page in the browser so that found elements can be reused until the page changes.
+ *
+ * <p>
+ * The counter advances on navigation and on every click, which can submit a form or replace a part of the page.
+ * Changes done by scripts are not observed, so users of the counter still need to expect
+ * {@link org.openqa.selenium.StaleElementReferenceException}.
+ *
+ * @see org.jenkinsci.test.acceptance.po.Control#resolve()
+ */
+@TestScope
+public class PageGeneration extends AbstractWebDriverEventListener {
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean tracking;
+
+    /**
+     * Starts counting the changes of the page in this browser.
+     */
+    public void attach(EventFiringWebDriver driver) {
+        driver.register(this);
+        tracking = true;
+    }
+
+    /**
+     * Whether the counter observes the browser at all. If not, nothing found in the page should be reused.
+     */
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Explicitly marks the page as changed.
+     */
+    public void advance() {
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void beforeNavigateTo(String url, WebDriver driver) {
+        advance();
+    }
+
+    @Override
+    public void afterNavigateTo(String url, WebDriver driver) {
+        advance();
+    }
+
+    @Override
+    public void afterNavigateBack(WebDriver driver) {
+        advance();
+    }
+
+    @Override
+    public void afterNavigateForward(WebDriver driver) {
+        advance();
+    }
+
+    @Override
+    public void afterClickOn(WebElement element, WebDriver driver) {
+        advance();
+    }
+}
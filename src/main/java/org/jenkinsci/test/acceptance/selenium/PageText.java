@@ -0,0 +1,76 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches the text of the page in the browser rather than transferring the whole text to match it here.
+ *
+ * <p>
+ * Literal texts, and regular expressions that mean the same in Java and JavaScript, are searched in the browser.
+ * For anything else, {@link #find(WebDriver, Pattern)} returns null and the caller is expected to match
+ * {@link org.openqa.selenium.WebElement#getText()} itself.
+ *
+ * @see org.jenkinsci.test.acceptance.Matchers#hasContent(Pattern)
+ */
+public class PageText {
+    private static final String SCRIPT;
+
+    static {
+        try {
+            SCRIPT = IOUtils.toString(PageText.class.getResourceAsStream("find-text.js"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final Pattern LITERAL = Pattern.compile("\\\\Q(.*)\\\\E", Pattern.DOTALL);
+
+    /**
+     * Constructs whose meaning differs between Java and JavaScript, or that JavaScript lacks.
+     */
+    private static final Pattern JAVA_ONLY = Pattern.compile(
+            "\\\\[QEAZzGpPhHRXk]|\\(\\?[^:=!]|[*+?}]\\+|&&|\\[\\["
+    );
+
+    private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.MULTILINE;
+
+    /**
+     * Checks if the visible text of the page contains a match.
+     *
+     * @return null if the search can not be done in the browser.
+     */
+    public static Boolean find(WebDriver driver, Pattern pattern) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+
+        String p = pattern.pattern();
+        Object[] args;
+        Matcher literal = LITERAL.matcher(p);
+        if (literal.matches() && !literal.group(1).contains("\\E")) {
+            args = new Object[] {literal.group(1), false, ""};
+        } else {
+            if (JAVA_ONLY.matcher(p).find() || (pattern.flags() & ~SUPPORTED_FLAGS) != 0) {
+                return null;
+            }
+            String flags = "";
+            if ((pattern.flags() & Pattern.CASE_INSENSITIVE) != 0) flags += "i";
+            if ((pattern.flags() & Pattern.MULTILINE) != 0) flags += "m";
+            args = new Object[] {p, true, flags};
+        }
+
+        try {
+            Object r = ((JavascriptExecutor) driver).executeScript(SCRIPT, args);
+            return r instanceof Boolean ? (Boolean) r : null;
+        } catch (WebDriverException e) {
+            return null; // e.g. a syntax JavaScript does not know
+        }
+    }
+}
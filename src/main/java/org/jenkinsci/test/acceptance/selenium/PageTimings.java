@@ -0,0 +1,195 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the browser's own timing of every page the tests navigate to, so that the functional suite
+ * doubles as a check for UI latency regressions.
+ *
+ * <p>
+ * After each navigation, the Navigation Timing and Resource Timing data are read in a single script call and
+ * recorded under the URL pattern of the page, such as <tt>/job/&#42;/configure</tt>, where the names of jobs,
+ * views, nodes, and users as well as build numbers are replaced by <tt>*</tt>.
+ * Pages loaded by clicking on links or submitting forms are not recorded.
+ *
+ * <p>
+ * The listener is only registered when the <tt>PAGE_TIMINGS</tt> environment variable is set. The report is written
+ * when the {@link org.jenkinsci.test.acceptance.guice.World} goes away, to the file it names or to
+ * <tt>target/page-timings.txt</tt> if it is empty.
+ * URL patterns are sorted by name, so the reports of two runs against different Jenkins versions can be diffed.
+ */
+@Singleton
+public class PageTimings extends AbstractWebDriverEventListener implements Closeable {
+    private static final String SCRIPT;
+
+    static {
+        try {
+            SCRIPT = IOUtils.toString(PageTimings.class.getResourceAsStream("page-timing.js"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Path segments that follow one of these are names given by the test.
+     */
+    private static final Pattern NAMED = Pattern.compile("job|view|computer|user|label|node|item|credential|domain");
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+|lastBuild|lastStableBuild|lastSuccessfulBuild|lastFailedBuild|lastUnstableBuild|lastUnsuccessfulBuild|lastCompletedBuild");
+
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    /**
+     * Null if the timings are not collected.
+     */
+    private final File report;
+
+    @Inject
+    public PageTimings(WorldCleaner cleaner) {
+        String report = System.getenv("PAGE_TIMINGS");
+        this.report = report == null ? null : new File(report.isEmpty() ? "target/page-timings.txt" : report);
+        if (this.report != null) {
+            cleaner.addTask(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return report != null;
+    }
+
+    /**
+     * Appends the report to the file.
+     */
+    @Override
+    public void close() {
+        report.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(new FileOutputStream(report, true), false, "UTF-8")) {
+            writeReport(out);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write " + report, e);
+        }
+    }
+
+    @Override
+    public void afterNavigateTo(String url, WebDriver driver) {
+        List<?> r;
+        try {
+            r = (List<?>) ((JavascriptExecutor) driver).executeScript(SCRIPT);
+        } catch (WebDriverException e) {
+            return; // not an HTML page, or the browser can not tell
+        }
+        if (r == null) {
+            return;
+        }
+
+        long[] values = new long[r.size() - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ((Number) r.get(i + 1)).longValue();
+        }
+        record(patternOf(String.valueOf(r.get(0))), values);
+    }
+
+    private synchronized void record(String pattern, long[] values) {
+        Samples s = samples.get(pattern);
+        if (s == null) {
+            samples.put(pattern, s = new Samples());
+        }
+        s.add(values);
+    }
+
+    /**
+     * Turns the URL of a page to the pattern it is reported under.
+     */
+    /*package*/ static String patternOf(String url) {
+        String path;
+        try {
+            path = new URI(url).getRawPath();
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+
+        StringBuilder b = new StringBuilder();
+        boolean named = false;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            boolean wildcard = named || NUMBER.matcher(segment).matches();
+            b.append('/').append(wildcard ? "*" : segment);
+            named = !wildcard && NAMED.matcher(segment).matches();
+        }
+        if (path.endsWith("/")) {
+            b.append('/');
+        }
+        return b.length() == 0 ? "/" : b.toString();
+    }
+
+    /**
+     * Writes percentiles of each measure per URL pattern.
+     */
+    public synchronized void writeReport(PrintStream out) {
+        out.println("=== Page timings of " + ManagementFactory.getRuntimeMXBean().getName());
+        out.printf("%7s %-9s %7s %7s %7s %7s  %s%n", "samples", "measure", "p50", "p90", "p99", "max", "URL pattern");
+        for (Map.Entry<String, Samples> e : samples.entrySet()) {
+            Samples s = e.getValue();
+            for (int i = 0; i < MEASURES.length; i++) {
+                List<Long> v = s.values.get(i);
+                if (v.isEmpty()) continue;
+                Collections.sort(v);
+                out.printf("%7d %-9s %7d %7d %7d %7d  %s%n", v.size(), MEASURES[i],
+                        percentile(v, 50), percentile(v, 90), percentile(v, 99), v.get(v.size() - 1), e.getKey());
+            }
+        }
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        int i = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, i));
+    }
+
+    private static final String[] MEASURES = {"ttfb", "dcl", "load", "resources", "kbytes"};
+
+    private static final Logger LOGGER = Logger.getLogger(PageTimings.class.getName());
+
+    private static final class Samples {
+        private final List<List<Long>> values = new ArrayList<>();
+
+        private Samples() {
+            for (int i = 0; i < MEASURES.length; i++) {
+                values.add(new ArrayList<Long>());
+            }
+        }
+
+        private void add(long[] v) {
+            for (int i = 0; i < MEASURES.length && i < v.length; i++) {
+                if (v[i] < 0) continue; // not known
+                values.get(i).add(MEASURES[i].equals("kbytes") ? v[i] / 1024 : v[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP proxy for the browsers that serves the static resources of Jenkins from a cache.
+ *
+ * <p>
+ * Every fresh browser downloads the same JavaScript, CSS, and images of Jenkins again. Resources of the core
+ * under <tt>/static/&lt;hash>/</tt> never change for a given version of Jenkins, so they are cached by the Jenkins
+ * version (as reported by the <tt>X-Jenkins</tt> header of the pages) and their path without the hash, which
+ * changes with every Jenkins start. Cached resources are kept in memory with LRU eviction, and on disk so that
+ * other surefire forks and later runs can use them too.
+ *
+ * <p>
+ * Everything else is passed through. That includes <tt>/static/&lt;hash>/plugin/</tt> and <tt>/adjuncts/</tt>,
+ * which may come from plugins whose version is not part of the key, and https traffic, which the browsers
+ * are told to send directly.
+ *
+ * <p>
+ * The proxy is off unless the <tt>RESOURCE_CACHE</tt> environment variable is set, to the cache directory
+ * or to an empty string for <tt>target/resource-cache</tt>. Only Firefox and Chrome are configured to use it.
+ */
+@Singleton
+public class ResourceCachingProxy implements Closeable {
+    private static final Pattern CACHEABLE = Pattern.compile("(/.*)?/(static)/[0-9a-f]{8,}/((?!plugin/).*)");
+
+    /**
+     * Headers that only make sense for a single connection.
+     */
+    private static final Set<String> HOP_BY_HOP = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "proxy-authenticate", "proxy-authorization",
+            "te", "trailer", "transfer-encoding", "upgrade", "content-length", "host"
+    ));
+
+    private static final long MEMORY_LIMIT = 64 * 1024 * 1024;
+
+    private final File dir;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    /**
+     * Jenkins version of each origin, learned from the pages that went through.
+     */
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+
+    private final LruCache memory = new LruCache();
+
+    @Inject
+    public ResourceCachingProxy(WorldCleaner cleaner) {
+        String d = System.getenv("RESOURCE_CACHE");
+        this.dir = d == null ? null : new File(d.isEmpty() ? "target/resource-cache" : d);
+        cleaner.addTask(this);
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    /**
+     * Starts the proxy if it is not running yet.
+     *
+     * @return "host:port" to configure in the browser.
+     */
+    public synchronized String getAddress() throws IOException {
+        if (server == null) {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", new Handler());
+            executor = Executors.newCachedThreadPool();
+            server.setExecutor(executor);
+            server.start();
+        }
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    private final class Handler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange x) throws IOException {
+            try {
+                URI uri = x.getRequestURI();
+                if (uri.getHost() == null) {
+                    x.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+                    return;
+                }
+
+                String key = cacheKey(uri, x.getRequestMethod());
+                if (key == null) {
+                    forward(x, null);
+                    return;
+                }
+
+                Resource r = lookup(key);
+                if (r == null) {
+                    forward(x, key);
+                } else {
+                    send(x, r);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to proxy " + x.getRequestURI(), e);
+                throw e;
+            } finally {
+                x.close();
+            }
+        }
+    }
+
+    /**
+     * @return null if the resource should not be cached.
+     */
+    private String cacheKey(URI uri, String method) {
+        if (!method.equals("GET") || uri.getRawQuery() != null) {
+            return null;
+        }
+        Matcher m = CACHEABLE.matcher(uri.getRawPath());
+        if (!m.matches()) {
+            return null;
+        }
+        String version = versions.get(origin(uri));
+        if (version == null) {
+            return null; // no page seen yet from this Jenkins
+        }
+        return version + '/' + m.group(2) + '/' + m.group(3);
+    }
+
+    private static String origin(URI uri) {
+        return uri.getHost() + ':' + uri.getPort();
+    }
+
+    private void forward(HttpExchange x, String key) throws IOException {
+        URI uri = x.getRequestURI();
+        HttpURLConnection con = (HttpURLConnection) new URL(uri.toString()).openConnection(Proxy.NO_PROXY);
+        con.setInstanceFollowRedirects(false);
+        con.setRequestMethod(x.getRequestMethod());
+        for (Map.Entry<String, List<String>> h : x.getRequestHeaders().entrySet()) {
+            String name = h.getKey().toLowerCase(Locale.ENGLISH);
+            if (HOP_BY_HOP.contains(name)) continue;
+            if (key != null && name.equals("accept-encoding")) continue; // cache the identity encoding
+            for (String v : h.getValue()) {
+                con.addRequestProperty(h.getKey(), v);
+            }
+        }
+
+        if (x.getRequestMethod().equals("POST") || x.getRequestMethod().equals("PUT")) {
+            con.setDoOutput(true);
+            try (InputStream in = x.getRequestBody(); OutputStream out = con.getOutputStream()) {
+                IOUtils.copy(in, out);
+            }
+        }
+
+        int code = con.getResponseCode();
+        String version = con.getHeaderField("X-Jenkins");
+        if (version != null) {
+            versions.put(origin(uri), version);
+        }
+
+        InputStream body = code >= 400 ? con.getErrorStream() : con.getInputStream();
+        if (key != null && code == HttpURLConnection.HTTP_OK && body != null) {
+            Resource r = new Resource(con.getContentType(), IOUtils.toByteArray(body));
+            store(key, r);
+            send(x, r);
+            return;
+        }
+
+        Headers headers = x.getResponseHeaders();
+        for (Map.Entry<String, List<String>> h : con.getHeaderFields().entrySet()) {
+            if (h.getKey() == null || HOP_BY_HOP.contains(h.getKey().toLowerCase(Locale.ENGLISH))) continue;
+            headers.put(h.getKey(), h.getValue());
+        }
+        if (body == null || code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_MODIFIED
+                || x.getRequestMethod().equals("HEAD")) {
+            x.sendResponseHeaders(code, -1);
+            return;
+        }
+        x.sendResponseHeaders(code, 0);
+        try (InputStream in = body; OutputStream out = x.getResponseBody()) {
+            IOUtils.copy(in, out);
+        }
+    }
+
+    private void send(HttpExchange x, Resource r) throws IOException {
+        if (r.contentType != null) {
+            x.getResponseHeaders().set("Content-Type", r.contentType);
+        }
+        x.getResponseHeaders().set("Cache-Control", "public, max-age=31536000");
+        x.sendResponseHeaders(HttpURLConnection.HTTP_OK, r.body.length);
+        try (OutputStream out = x.getResponseBody()) {
+            out.write(r.body);
+        }
+    }
+
+    private Resource lookup(String key) throws IOException {
+        Resource r = memory.get(key);
+        if (r != null) {
+            return r;
+        }
+
+        File f = fileOf(key);
+        if (!f.exists()) {
+            return null;
+        }
+        byte[] data = FileUtils.readFileToByteArray(f);
+        int nl = indexOf(data, (byte) '\n');
+        if (nl < 0) {
+            return null; // broken
+        }
+        String contentType = new String(data, 0, nl, "UTF-8");
+        r = new Resource(contentType.isEmpty() ? null : contentType, Arrays.copyOfRange(data, nl + 1, data.length));
+        memory.put(key, r);
+        return r;
+    }
+
+    private void store(String key, Resource r) throws IOException {
+        memory.put(key, r);
+
+        File f = fileOf(key);
+        f.getParentFile().mkdirs();
+        // write and rename, so that other forks never see a partial file
+        File tmp = File.createTempFile("resource", ".tmp", f.getParentFile());
+        try (OutputStream out = FileUtils.openOutputStream(tmp)) {
+            out.write((r.contentType == null ? "" : r.contentType).getBytes("UTF-8"));
+            out.write('\n');
+            out.write(r.body);
+        }
+        if (!tmp.renameTo(f)) {
+            tmp.delete();
+        }
+    }
+
+    private File fileOf(String key) {
+        return new File(dir, Hashing.sha1().hashString(key, Charsets.UTF_8).toString());
+    }
+
+    private static int indexOf(byte[] data, byte b) {
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == b) return i;
+        }
+        return -1;
+    }
+
+    private static final class Resource {
+        private final String contentType;
+        private final byte[] body;
+
+        private Resource(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Keeps the most recently used resources up to {@link #MEMORY_LIMIT} bytes.
+     */
+    private static final class LruCache {
+        private final LinkedHashMap<String, Resource> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long size;
+
+        synchronized Resource get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(String key, Resource r) {
+            Resource old = entries.put(key, r);
+            if (old != null) {
+                size -= old.body.length;
+            }
+            size += r.body.length;
+
+            Iterator<Resource> it = entries.values().iterator();
+            while (size > MEMORY_LIMIT && it.hasNext()) {
+                size -= it.next().body.length;
+                it.remove();
+            }
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(ResourceCachingProxy.class.getName());
+}
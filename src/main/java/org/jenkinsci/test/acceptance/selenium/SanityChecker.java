@@ -23,9 +23,11 @@
  */
 package org.jenkinsci.test.acceptance.selenium;
 
+import java.io.IOException;
 import java.util.List;
 
-import org.openqa.selenium.By;
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
@@ -33,12 +35,19 @@ import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
 /**
  * Make sure there are no exceptions shown after user interaction.
  *
+ * <p>
+ * This runs before every click and around every navigation, so the check is done by a single small
+ * script in the page rather than by fetching the page source. The script also skips the check
+ * when the DOM did not change since the previous one.
+ *
  * @author ogondza
  */
 public class SanityChecker extends AbstractWebDriverEventListener {
-    private final static By SPECIFIER = By.xpath(
-            "//h1/span[contains(., 'Oops!')]/../following-sibling::div/h2[text()='Stack trace']/following-sibling::pre"
-    );
+    private final String checkJs;
+
+    public SanityChecker() throws IOException {
+        checkJs = IOUtils.toString(SanityChecker.class.getResourceAsStream("sanity-checker.js"));
+    }
 
     @Override
     public void afterNavigateTo(String url, WebDriver driver) {
@@ -56,12 +65,18 @@ public class SanityChecker extends AbstractWebDriverEventListener {
     }
 
     private void checkSanity(WebDriver driver) {
-        if (isFastPath(driver)) return;
+        report((List<?>) ((JavascriptExecutor) driver).executeScript(checkJs), driver);
+    }
+
+    /**
+     * Reports the problem found by <tt>sanity-checker.js</tt>, if any.
+     */
+    /*package*/ static void report(List<?> problem, WebDriver driver) {
+        if (problem == null) return;
 
         // Exception
-        List<WebElement> elements = driver.findElements(SPECIFIER);
-        if (!elements.isEmpty()) {
-            String trace = elements.get(0).getText();
+        if ("exception".equals(problem.get(0))) {
+            String trace = (String) problem.get(1);
 
             if (trace.contains("<j:forEach> java.util.ConcurrentModificationException")) {
                 // Do not report JENKINS-22553 as it is recoverable and fails dozens of tests
@@ -72,20 +87,6 @@ public class SanityChecker extends AbstractWebDriverEventListener {
         }
 
         // POST required
-        WebElement postForm = driver.findElement(By.cssSelector("form > input[value='Try POSTing']"));
-        if (postForm != null) throw new AssertionError("Post required at " + driver.getCurrentUrl());
-
-    }
-
-    /**
-     * Quickly determine if the driver is definitely in the safe state.
-     *
-     * <p>
-     * The expectation is that the most of the time this would return true,
-     * and reduces the overhead of {@link SanityChecker}.
-     */
-    private boolean isFastPath(WebDriver driver) {
-        final String pageSource = driver.getPageSource();
-        return !(pageSource.contains("Oops!") || pageSource.contains("Try POSTing"));
+        throw new AssertionError("Post required at " + driver.getCurrentUrl());
     }
 }
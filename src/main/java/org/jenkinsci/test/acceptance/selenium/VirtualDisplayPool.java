@@ -0,0 +1,220 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.openqa.selenium.WebDriver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs GUI browsers on Xvfb displays managed by the harness, so that several of them can run in parallel
+ * on a headless machine without stealing the focus from each other or from the developer.
+ *
+ * <p>
+ * Each browser gets a display of its own. Displays are started as needed, handed to the next browser when the
+ * browser that used them quits, and stopped when the {@link org.jenkinsci.test.acceptance.guice.World} goes away.
+ * Surefire forks find free display numbers on their own by looking at the X lock files.
+ *
+ * <p>
+ * The pool is off unless the <tt>XVFB</tt> environment variable is set. Its value, if any, is the screen
+ * geometry such as <tt>1280x1024x24</tt>. Xvfb needs to be on the <tt>PATH</tt>.
+ */
+@Singleton
+public class VirtualDisplayPool implements Closeable {
+    /**
+     * Displays below this are left to humans.
+     */
+    private static final int FIRST_DISPLAY = 90;
+
+    private static final int LAST_DISPLAY = 599;
+
+    private final String screen;
+
+    private final Deque<Display> idle = new ArrayDeque<>();
+
+    private final List<Display> all = new ArrayList<>();
+
+    /**
+     * Display each live browser runs on.
+     */
+    private final Map<WebDriver, Display> leased = new IdentityHashMap<>();
+
+    /**
+     * Closed before the displays are stopped.
+     */
+    private final List<Closeable> dependents = new ArrayList<>();
+
+    @Inject
+    public VirtualDisplayPool(WorldCleaner cleaner) {
+        String xvfb = System.getenv("XVFB");
+        this.screen = xvfb == null ? null : xvfb.isEmpty() ? "1280x1024x24" : xvfb;
+        cleaner.addTask(this);
+    }
+
+    public boolean isEnabled() {
+        return screen != null;
+    }
+
+    /**
+     * Gets an idle display, or starts a new one.
+     *
+     * @return Display whose {@link Display#toString()} goes to the <tt>DISPLAY</tt> environment variable of the browser.
+     */
+    public synchronized Display lease() throws IOException {
+        Display d = idle.pollFirst();
+        if (d != null && d.isAlive()) {
+            return d;
+        }
+        if (d != null) {
+            all.remove(d);
+        }
+        return start();
+    }
+
+    /**
+     * Records which display the browser runs on, so that it can be {@linkplain #release(WebDriver) released}
+     * when the browser quits.
+     */
+    public synchronized void bind(WebDriver driver, Display d) {
+        leased.put(driver, d);
+    }
+
+    /**
+     * Makes the display of the browser available again. Call after the browser has quit.
+     */
+    public synchronized void release(WebDriver driver) {
+        Display d = leased.remove(driver);
+        if (d != null) {
+            idle.addFirst(d);
+        }
+    }
+
+    /**
+     * Returns a display that did not end up being used by a browser.
+     */
+    public synchronized void release(Display d) {
+        idle.addFirst(d);
+    }
+
+    /**
+     * Has the given resource, typically one that keeps browsers around, closed before the displays are stopped.
+     */
+    public synchronized void addDependent(Closeable c) {
+        dependents.add(c);
+    }
+
+    private Display start() throws IOException {
+        for (int n = FIRST_DISPLAY; n <= LAST_DISPLAY; n++) {
+            if (lockFile(n).exists()) {
+                continue; // somebody else's, maybe another fork
+            }
+
+            Process p = new ProcessBuilder("Xvfb", ":" + n, "-screen", "0", screen, "-nolisten", "tcp", "-ac")
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("/dev/null"))
+                    .start();
+            if (awaitStart(p, n)) {
+                Display d = new Display(n, p);
+                all.add(d);
+                LOGGER.info("Started Xvfb on " + d);
+                return d;
+            }
+            p.destroy(); // lost the race for the display number
+        }
+        throw new IOException("No free display for Xvfb between :" + FIRST_DISPLAY + " and :" + LAST_DISPLAY);
+    }
+
+    private boolean awaitStart(Process p, int n) throws IOException {
+        for (int i = 0; i < 100; i++) {
+            try {
+                p.exitValue();
+                return false; // display taken
+            } catch (IllegalThreadStateException e) {
+                // still running
+            }
+            if (lockFile(n).exists() && new File("/tmp/.X11-unix/X" + n).exists()) {
+                return true;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                p.destroy();
+                throw new IOException("Interrupted while starting Xvfb", e);
+            }
+        }
+        return false;
+    }
+
+    private static File lockFile(int n) {
+        return new File("/tmp/.X" + n + "-lock");
+    }
+
+    /**
+     * Closes the dependents, then stops all the displays.
+     */
+    @Override
+    public void close() {
+        List<Closeable> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(dependents);
+            dependents.clear();
+        }
+        for (Closeable c : toClose) {
+            try {
+                c.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to close " + c, e);
+            }
+        }
+        stop();
+    }
+
+    private synchronized void stop() {
+        for (Display d : all) {
+            d.process.destroy();
+        }
+        all.clear();
+        idle.clear();
+        leased.clear();
+    }
+
+    public static final class Display {
+        private final int number;
+        private final Process process;
+
+        private Display(int number, Process process) {
+            this.number = number;
+            this.process = process;
+        }
+
+        private boolean isAlive() {
+            try {
+                process.exitValue();
+                return false;
+            } catch (IllegalThreadStateException e) {
+                return true;
+            }
+        }
+
+        /**
+         * Value for the <tt>DISPLAY</tt> environment variable.
+         */
+        @Override
+        public String toString() {
+            return ":" + number;
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualDisplayPool.class.getName());
+}
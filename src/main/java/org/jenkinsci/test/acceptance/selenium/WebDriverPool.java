@@ -0,0 +1,233 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+/**
+ * Keeps warm browser sessions around so that tests do not pay for browser startup every time.
+ *
+ * <p>
+ * The pool lives as long as the JVM, so each surefire fork has its own set of browsers.
+ * When a test is done with its browser, the browser is reset to look fresh &mdash; storage and
+ * cookies are cleared and about:blank is loaded &mdash; and handed out to the next test.
+ * Browsers that fail the health check or that have served {@link #maxReuse} tests are quit
+ * instead, in order not to accumulate leaked memory.
+ *
+ * <p>
+ * Storage and cookies can only be cleared for the origin of the page the browser is on. So a browser
+ * that went to more than one origin, such as a second Jenkins or a fixture container, is quit rather
+ * than reused. Origins are learned from {@link #attach(EventFiringWebDriver) navigation} and from the
+ * page the test ends on; a test that leaves its origin only through links may go unnoticed.
+ *
+ * <p>
+ * Pooling is off unless the <tt>BROWSER_REUSE</tt> environment variable gives the maximum
+ * number of tests a browser can serve.
+ */
+@Singleton
+public class WebDriverPool implements Closeable {
+    private final int maxReuse;
+
+    private final Deque<WebDriver> idle = new ArrayDeque<>();
+
+    /**
+     * Number of tests each live browser has served so far.
+     */
+    private final Map<WebDriver, Integer> uses = new IdentityHashMap<>();
+
+    /**
+     * Origins each live browser went to during the current test.
+     */
+    private final Map<WebDriver, Set<String>> origins = new IdentityHashMap<>();
+
+    private final VirtualDisplayPool displays;
+
+    @Inject
+    public WebDriverPool(VirtualDisplayPool displays) {
+        this.displays = displays;
+        String reuse = System.getenv("BROWSER_REUSE");
+        this.maxReuse = reuse == null ? 1 : Integer.parseInt(reuse);
+        // the browsers need to quit while their displays are still up
+        displays.addDependent(this);
+    }
+
+    /**
+     * True if browsers are reused across tests.
+     */
+    public boolean isEnabled() {
+        return maxReuse > 1;
+    }
+
+    /**
+     * Starts recording the origins the browser goes to, so that it can be told on {@link #release(WebDriver)}
+     * whether the browser can be reset.
+     */
+    public void attach(final EventFiringWebDriver driver) {
+        driver.register(new AbstractWebDriverEventListener() {
+            @Override
+            public void afterNavigateTo(String url, WebDriver d) {
+                visited(driver.getWrappedDriver(), url);
+            }
+        });
+    }
+
+    private synchronized void visited(WebDriver d, String url) {
+        String origin = originOf(url);
+        if (origin == null) {
+            return;
+        }
+        Set<String> s = origins.get(d);
+        if (s == null) {
+            origins.put(d, s = new HashSet<>());
+        }
+        s.add(origin);
+    }
+
+    /**
+     * @return null for URLs without an origin of their own, such as about:blank.
+     */
+    private static String originOf(String url) {
+        try {
+            URL u = new URL(url);
+            if (!u.getProtocol().startsWith("http")) {
+                return null;
+            }
+            return u.getProtocol() + "://" + u.getHost() + ':' + (u.getPort() == -1 ? u.getDefaultPort() : u.getPort());
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hands out an idle browser, or creates a new one if there is none.
+     */
+    public WebDriver lease(Callable<WebDriver> factory) throws IOException {
+        synchronized (this) {
+            WebDriver d = idle.pollFirst();
+            if (d != null) {
+                uses.put(d, uses.get(d) + 1);
+                return d;
+            }
+        }
+
+        WebDriver d;
+        try {
+            d = factory.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to create a browser", e);
+        }
+        synchronized (this) {
+            uses.put(d, 1);
+        }
+        return d;
+    }
+
+    /**
+     * Returns the browser back to the pool, or quits it if it should not be reused.
+     */
+    public void release(WebDriver d) {
+        int n;
+        synchronized (this) {
+            n = uses.get(d);
+        }
+
+        if (n < maxReuse && reset(d)) {
+            synchronized (this) {
+                idle.addFirst(d);
+            }
+        } else {
+            quit(d);
+        }
+    }
+
+    /**
+     * Brings the browser to a state indistinguishable from a fresh one.
+     *
+     * @return false if the browser does not look healthy, or has state that cannot be cleared.
+     */
+    private boolean reset(WebDriver d) {
+        Set<String> visited;
+        synchronized (this) {
+            visited = origins.remove(d);
+        }
+        try {
+            if (d.getWindowHandles().size() != 1) {
+                return false; // the test left some windows behind
+            }
+
+            visited = visited == null ? new HashSet<String>() : visited;
+            String current = originOf(d.getCurrentUrl());
+            if (current != null) {
+                visited.add(current);
+            }
+            if (visited.size() > 1) {
+                LOGGER.info("Discarding browser that went to " + visited);
+                return false; // only the current origin could be cleared
+            }
+
+            // storage and cookies are only accessible from the page of their origin
+            ((JavascriptExecutor) d).executeScript(RESET_STORAGE);
+            d.manage().deleteAllCookies();
+            d.get("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            LOGGER.info("Discarding unhealthy browser: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void quit(WebDriver d) {
+        synchronized (this) {
+            uses.remove(d);
+            origins.remove(d);
+        }
+        try {
+            d.quit();
+        } catch (WebDriverException e) {
+            LOGGER.info("Failed to quit browser: " + e.getMessage());
+        }
+        displays.release(d);
+    }
+
+    /**
+     * Quits all the idle browsers.
+     */
+    @Override
+    public void close() {
+        while (true) {
+            WebDriver d;
+            synchronized (this) {
+                d = idle.pollFirst();
+            }
+            if (d == null) {
+                return;
+            }
+            quit(d);
+        }
+    }
+
+    private static final String RESET_STORAGE =
+            "try { window.localStorage.clear(); } catch (e) {}\n" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private static final Logger LOGGER = Logger.getLogger(WebDriverPool.class.getName());
+}
@@ -0,0 +1,143 @@
+package org.jenkinsci.test.acceptance.utils;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records how much time each waiting call site spends, so that we can see which waits dominate the suite time.
+ *
+ * <p>
+ * Statistics are only collected if the <tt>WAIT_STATISTICS</tt> environment variable is set. The report is written
+ * when the {@link org.jenkinsci.test.acceptance.guice.World} goes away, to the file the variable names or to
+ * <tt>target/wait-statistics.txt</tt> if it is empty. Each surefire fork appends its own section.
+ */
+@Singleton
+public class WaitStatistics implements Closeable {
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Null if the statistics are not collected.
+     */
+    private final File report;
+
+    @Inject
+    public WaitStatistics(WorldCleaner cleaner) {
+        String report = System.getenv("WAIT_STATISTICS");
+        this.report = report == null ? null : new File(report.isEmpty() ? "target/wait-statistics.txt" : report);
+        if (this.report != null) {
+            cleaner.addTask(this);
+        }
+    }
+
+    /**
+     * True if waits should be {@linkplain #record recorded}. Callers should check this before computing the
+     * {@linkplain #callSite call site}, which is not cheap.
+     */
+    public boolean isEnabled() {
+        return report != null;
+    }
+
+    /**
+     * Records a single wait.
+     *
+     * @param callSite  Code that waited, such as <tt>Build.waitUntilFinished(Build.java:120)</tt>.
+     * @param condition What was waited for.
+     * @param attempts  Number of times the condition was evaluated.
+     * @param waited    Total time spent waiting in milliseconds.
+     * @param satisfied false if the wait timed out or failed.
+     */
+    public synchronized void record(String callSite, Object condition, int attempts, long waited, boolean satisfied) {
+        if (!isEnabled()) {
+            return;
+        }
+        Entry e = entries.get(callSite);
+        if (e == null) {
+            entries.put(callSite, e = new Entry(callSite));
+        }
+        e.calls++;
+        e.attempts += attempts;
+        e.waited += waited;
+        e.longest = Math.max(e.longest, waited);
+        if (!satisfied) e.failures++;
+        e.condition = String.valueOf(condition);
+    }
+
+    /**
+     * Returns the first stack frame outside of the given class (including its nested classes) as a call site name.
+     */
+    public static String callSite(Class<?> waiter) {
+        String prefix = waiter.getName();
+        for (StackTraceElement e : new Throwable().getStackTrace()) {
+            String c = e.getClassName();
+            if (c.startsWith(prefix) || c.equals(WaitStatistics.class.getName())) continue;
+            return c.substring(c.lastIndexOf('.') + 1) + '.' + e.getMethodName()
+                    + '(' + e.getFileName() + ':' + e.getLineNumber() + ')';
+        }
+        return "unknown";
+    }
+
+    /**
+     * Appends the report to the file.
+     */
+    @Override
+    public void close() {
+        report.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(new FileOutputStream(report, true), false, "UTF-8")) {
+            writeReport(out);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write " + report, e);
+        }
+    }
+
+    /**
+     * Writes call sites ordered by the total time they waited.
+     */
+    public synchronized void writeReport(PrintStream out) {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Long.compare(o2.waited, o1.waited);
+            }
+        });
+
+        out.println("=== Wait statistics of " + ManagementFactory.getRuntimeMXBean().getName());
+        out.printf("%10s %7s %9s %10s %9s  %s%n", "total ms", "calls", "attempts", "longest ms", "timeouts", "call site / condition");
+        for (Entry e : sorted) {
+            out.printf("%10d %7d %9d %10d %9d  %s%n", e.waited, e.calls, e.attempts, e.longest, e.failures, e.callSite);
+            out.printf("%50s  %s%n", "", e.condition);
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(WaitStatistics.class.getName());
+
+    private static final class Entry {
+        private final String callSite;
+        private int calls;
+        private long attempts;
+        private long waited;
+        private long longest;
+        private int failures;
+        private String condition;
+
+        private Entry(String callSite) {
+            this.callSite = callSite;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+// Collect every text a caption of a Describable could be matched against in the page:
+// texts of labels, options, links, and buttons, and the identifying attributes of form controls, links and images.
+// Returns the distinct strings, with whitespace normalized like XPath normalize-space() does.
+
+var seen = {};
+var r = [];
+
+function add(s) {
+    if (!s) return;
+    s = s.replace(/\s+/g, ' ').replace(/^ | $/g, '');
+    if (s && !seen.hasOwnProperty('#' + s)) {
+        seen['#' + s] = true;
+        r.push(s);
+    }
+}
+
+var i, e;
+var texts = document.querySelectorAll('label, option, a, button');
+for (i = 0; i < texts.length; i++) {
+    add(texts[i].textContent);
+}
+
+var attrs = ['id', 'name', 'value', 'placeholder', 'title', 'alt'];
+var elements = document.querySelectorAll('input, select, textarea, option, a, img, button');
+for (i = 0; i < elements.length; i++) {
+    e = elements[i];
+    for (var j = 0; j < attrs.length; j++) {
+        add(e.getAttribute(attrs[j]));
+    }
+}
+return r;
@@ -0,0 +1,37 @@
+// Collect the values of all the form controls in the page that have a path.
+//
+// The result maps the path to
+//   true/false for checkboxes,
+//   the value of the checked radio button (or null) for a group of radio buttons,
+//   the text of the selected option (or null) for select elements,
+//   the value for any other input and textarea.
+// When several other controls share a path, the first one in the document wins.
+
+var r = {};
+var controls = document.querySelectorAll('input[path], select[path], textarea[path]');
+for (var i = 0; i < controls.length; i++) {
+    var e = controls[i];
+    var path = e.getAttribute('path');
+    var tag = e.tagName.toLowerCase();
+    var type = (e.type || '').toLowerCase();
+
+    if (type == 'radio') {
+        // radio buttons of a group share the path
+        if (e.checked) r[path] = e.value;
+        else if (!r.hasOwnProperty(path)) r[path] = null;
+        continue;
+    }
+
+    if (r.hasOwnProperty(path)) continue;
+    if (tag == 'input' && /^(button|submit|reset|image|file)$/.test(type)) continue;
+
+    if (tag == 'select') {
+        var o = e.options[e.selectedIndex];
+        r[path] = o ? o.textContent.replace(/\s+/g, ' ').replace(/^ | $/g, '') : null;
+    } else if (type == 'checkbox') {
+        r[path] = e.checked;
+    } else {
+        r[path] = e.value;
+    }
+}
+return r;
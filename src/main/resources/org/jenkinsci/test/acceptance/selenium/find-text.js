@@ -0,0 +1,22 @@
+// Search the visible text of the page, so that only the answer crosses the wire.
+//
+// arguments: the literal text or the regular expression, whether it is a regular expression, regexp flags
+// Returns true or false, or null if the browser can not tell the visible text apart.
+
+var expr = arguments[0];
+var isRegexp = arguments[1];
+var flags = arguments[2];
+
+var root = document.documentElement;
+if (!root || typeof root.innerText != 'string') return null;
+
+// approximate how WebDriver normalizes the text it reports
+var text = root.innerText
+    .replace(/\u00a0/g, ' ')
+    .replace(/[ \t\f\v]+/g, ' ')
+    .replace(/ *\r?\n */g, '\n')
+    .replace(/\n+/g, '\n')
+    .replace(/^\s+|\s+$/g, '');
+
+if (!isRegexp) return text.indexOf(expr) != -1;
+return new RegExp(expr, flags).test(text);
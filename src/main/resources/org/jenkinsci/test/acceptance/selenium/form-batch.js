@@ -0,0 +1,62 @@
+// Apply queued form writes in one go. Needs lookupPath() from path-index.js and typeInto() from typing.js.
+//
+// arguments: list of writes, each being [ [ candidate paths ], action, value ] where action is
+//   'set'    to replace the text of an input field or a textarea,
+//   'check'  to set the state of a checkbox or a radio button,
+//   'select' to select the option of a select element by its text or value.
+// Writes are applied in order. Returns the index of the first write that could not be applied,
+// so that the caller can do it natively, or -1 when all writes are done.
+
+var writes = arguments[0];
+
+for (var i = 0; i < writes.length; i++) {
+    var e = findElement(writes[i][0]);
+    if (!e || !apply(e, writes[i][1], writes[i][2])) return i;
+}
+return -1;
+
+function findElement(paths) {
+    for (var i = 0; i < paths.length; i++) {
+        var found = lookupPath(paths[i]);
+        for (var j = 0; j < found.length; j++) {
+            if (found[j].offsetWidth || found[j].offsetHeight) return found[j];
+        }
+    }
+    return null;
+}
+
+function apply(e, action, value) {
+    var tag = e.tagName.toLowerCase();
+    var type = (e.type || '').toLowerCase();
+    if (e.disabled) return false;
+
+    if (action == 'set') {
+        if (!isPlainTextField(e)) return false;
+        typeInto(e, value);
+        return true;
+    }
+
+    if (action == 'check') {
+        if (!(tag == 'input' && (type == 'checkbox' || type == 'radio'))) return false;
+        if (e.checked != value) e.click();
+        return true;
+    }
+
+    if (action == 'select') {
+        if (tag != 'select') return false;
+        for (var i = 0; i < e.options.length; i++) {
+            var o = e.options[i];
+            var text = o.textContent.replace(/\s+/g, ' ').replace(/^ | $/g, '');
+            if (text.indexOf(value) != -1 || o.value == value) {
+                if (!o.selected) {
+                    o.selected = true;
+                    dispatch(e, 'change', 'HTMLEvents', true);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    return false;
+}
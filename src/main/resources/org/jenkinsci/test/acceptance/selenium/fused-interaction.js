@@ -0,0 +1,41 @@
+// Check page sanity, scroll the element into view, make sure it can receive the interaction, and act on it,
+// all in a single round trip. Needs typeInto() from typing.js.
+//
+// arguments: element, action ('check' or 'set'), and the value (state for 'check', text for 'set')
+// Returns [ 'done', whether the element was clicked ], [ 'native' ] when the caller should fall back to the native interaction,
+// or [ 'insane', problem ] with the result of sanity-checker.js.
+
+var e = arguments[0];
+var action = arguments[1];
+var value = arguments[2];
+
+var problem = (function () {
+/*SANITY*/
+})();
+if (problem) return [ 'insane', problem ];
+
+var tag = e.tagName.toLowerCase();
+var type = (e.type || '').toLowerCase();
+var toggle = tag == 'input' && (type == 'checkbox' || type == 'radio');
+var text = isPlainTextField(e);
+if (!(action == 'set' ? text : toggle) || e.disabled || e.readOnly) return [ 'native' ];
+
+// same as scroller.js
+if (e.getAttribute("path")) {
+    e.scrollIntoView();
+    window.scrollBy(0, -40);
+}
+
+// the element needs to be the one that would receive a real click
+var r = e.getBoundingClientRect();
+if (r.width == 0 || r.height == 0) return [ 'native' ];
+var hit = document.elementFromPoint(r.left + r.width / 2, r.top + r.height / 2);
+if (!hit || !(hit == e || e.contains(hit))) return [ 'native' ];
+
+if (action == 'set') {
+    typeInto(e, value);
+} else if (e.checked != value) {
+    e.click();
+    return [ 'done', true ];
+}
+return [ 'done', false ];
@@ -0,0 +1,26 @@
+// Read the Navigation Timing and Resource Timing data of the page that has just loaded.
+//
+// Returns [ URL, time to first byte, DOMContentLoaded, load, number of resources, bytes transferred by resources ],
+// times in ms since the navigation started, or null if the browser does not support the timing API.
+// Times not known yet are -1, bytes are -1 if the browser does not report them.
+
+var p = window.performance;
+if (!p || !p.timing) return null;
+
+var t = p.timing;
+function since(v) {
+    return v > 0 ? v - t.navigationStart : -1;
+}
+
+var count = 0, bytes = -1;
+if (p.getEntriesByType) {
+    var resources = p.getEntriesByType('resource');
+    count = resources.length;
+    for (var i = 0; i < resources.length; i++) {
+        if (resources[i].transferSize !== undefined) {
+            bytes = Math.max(bytes, 0) + resources[i].transferSize;
+        }
+    }
+}
+
+return [ location.href, since(t.responseStart), since(t.domContentLoadedEventEnd), since(t.loadEventEnd), count, bytes ];
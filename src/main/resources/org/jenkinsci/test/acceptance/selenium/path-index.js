@@ -0,0 +1,56 @@
+// Index of the elements by the "path" attribute added by the form-element-path plugin.
+//
+// The index is built with one pass over the page the first time it is needed and kept in the page.
+// A MutationObserver adds elements as they are inserted, e.g. by repeatable and hetero-list "Add" buttons.
+// Anything more complex, such as removal of elements or paths being reassigned, drops the index
+// so that it gets rebuilt on the next lookup.
+
+function lookupPath(path) {
+    var index = window.__pathIndex;
+    if (!index) {
+        index = window.__pathIndex = { map: null, observed: false };
+        if (window.MutationObserver) {
+            index.observed = true;
+            new MutationObserver(function (mutations) {
+                if (!index.map) return;
+                for (var i = 0; i < mutations.length; i++) {
+                    var m = mutations[i];
+                    if (m.type == 'attributes' || m.removedNodes.length > 0) {
+                        index.map = null;
+                        return;
+                    }
+                    for (var j = 0; j < m.addedNodes.length; j++) {
+                        var n = m.addedNodes[j];
+                        if (n.nodeType != 1) continue;
+                        add(index.map, n);
+                        var nested = n.querySelectorAll('[path]');
+                        for (var k = 0; k < nested.length; k++) add(index.map, nested[k]);
+                    }
+                }
+            }).observe(document, { childList: true, subtree: true, attributes: true, attributeFilter: [ 'path' ] });
+        }
+    }
+
+    if (!index.map || !index.observed) {
+        index.map = {};
+        var all = document.querySelectorAll('[path]');
+        for (var i = 0; i < all.length; i++) add(index.map, all[i]);
+    }
+
+    var found = index.map['#' + path] || [];
+    if (found.length > 1) {
+        // incremental additions do not necessarily come in the document order
+        found.sort(function (a, b) {
+            return a.compareDocumentPosition(b) & Node.DOCUMENT_POSITION_FOLLOWING ? -1 : 1;
+        });
+    }
+    return found;
+
+    function add(map, e) {
+        var p = e.getAttribute('path');
+        if (p == null) return;
+        var key = '#' + p;
+        var list = map[key] || (map[key] = []);
+        if (list.indexOf(e) == -1) list.push(e);
+    }
+}
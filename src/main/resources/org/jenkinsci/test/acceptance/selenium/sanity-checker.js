@@ -0,0 +1,52 @@
+// Look for signs of a broken page without sending the page source over the wire.
+// Returns null when the page is fine, [ 'exception', stack trace ] or [ 'post' ] otherwise.
+//
+// Once checked, the page is watched by MutationObserver so that the next check is free unless the DOM changed.
+
+var state = window.__sanityChecker;
+if (state && !state.dirty) return null;
+
+if (!state && window.MutationObserver) {
+    state = window.__sanityChecker = { dirty: false };
+    new MutationObserver(function () { state.dirty = true; })
+            .observe(document, { childList: true, subtree: true, characterData: true });
+} else if (state) {
+    state.dirty = false;
+}
+
+// //h1/span[contains(., 'Oops!')]/../following-sibling::div/h2[text()='Stack trace']/following-sibling::pre
+// walked by hand as not all browsers support XPath
+function findTrace() {
+    var headings = document.querySelectorAll("div > h2");
+    for (var i = 0; i < headings.length; i++) {
+        var h2 = headings[i];
+        if (h2.textContent != 'Stack trace') continue;
+
+        var oops = false;
+        for (var s = h2.parentNode.previousElementSibling; s && !oops; s = s.previousElementSibling) {
+            if (s.tagName != 'H1') continue;
+            var spans = s.getElementsByTagName('span');
+            for (var j = 0; j < spans.length; j++) {
+                if (spans[j].parentNode == s && spans[j].textContent.indexOf('Oops!') != -1) oops = true;
+            }
+        }
+        if (!oops) continue;
+
+        for (var p = h2.nextElementSibling; p; p = p.nextElementSibling) {
+            if (p.tagName == 'PRE') return p;
+        }
+    }
+    return null;
+}
+
+var trace = findTrace();
+var result = null;
+if (trace) {
+    result = [ 'exception', trace.textContent ];
+} else if (document.querySelector("form > input[value='Try POSTing']")) {
+    result = [ 'post' ];
+}
+
+// keep reporting the problem as long as the page shows it
+if (result && state) state.dirty = true;
+return result;
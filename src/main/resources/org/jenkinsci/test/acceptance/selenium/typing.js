@@ -0,0 +1,43 @@
+// Types text into a field from a script, in a way the page can not tell apart from typing with the keyboard:
+// the field gets the focus, key and input events, and loses the focus again, so that auto-completion and
+// validation that listen to key presses or to blur still run.
+// Fields backed by widgets of their own, such as auto-completion and combo boxes, are left to native typing.
+
+function isPlainTextField(e) {
+    var tag = e.tagName.toLowerCase();
+    var type = (e.type || '').toLowerCase();
+    if (!(tag == 'textarea' || (tag == 'input' && /^(text|password|number|email|url|search|tel)$/.test(type)))) return false;
+    if (e.disabled || e.readOnly) return false;
+    return !/(^|\s)(auto-complete|combobox|yui-ac-input)(\s|$)/.test(e.className) && !e.getAttribute('autoCompleteUrl');
+}
+
+function typeInto(e, value) {
+    // focus events are not fired natively while the browser window is in the background
+    var native = document.hasFocus();
+    e.focus();
+    if (!native) dispatch(e, 'focus', 'HTMLEvents', false);
+
+    dispatch(e, 'keydown', 'KeyboardEvent', true);
+    dispatch(e, 'keypress', 'KeyboardEvent', true);
+    e.value = value;
+    dispatch(e, 'input', 'HTMLEvents', true);
+    dispatch(e, 'keyup', 'KeyboardEvent', true);
+    dispatch(e, 'change', 'HTMLEvents', true);
+
+    e.blur();
+    if (!native) dispatch(e, 'blur', 'HTMLEvents', false);
+}
+
+function dispatch(e, type, kind, bubbles) {
+    var event;
+    try {
+        event = kind == 'KeyboardEvent'
+            ? new KeyboardEvent(type, { bubbles: bubbles, cancelable: true })
+            : new Event(type, { bubbles: bubbles, cancelable: true });
+    } catch (x) {
+        // browsers without event constructors
+        event = document.createEvent('HTMLEvents');
+        event.initEvent(type, bubbles, true);
+    }
+    e.dispatchEvent(event);
+}
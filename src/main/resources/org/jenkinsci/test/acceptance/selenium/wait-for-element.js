@@ -0,0 +1,75 @@
+// Wait in the browser until an element matching the selector becomes visible.
+// Rather than being polled over the wire, the page is watched for changes by MutationObserver.
+//
+// arguments: 'xpath', 'css' or 'path', the expression, timeout in ms, whether to return the last match instead
+// The result is the matching element, or null on timeout.
+
+var kind = arguments[0];
+var expr = arguments[1];
+var timeout = arguments[2];
+var last = arguments[3];
+var callback = arguments[arguments.length - 1];
+
+function all() {
+    if (kind == 'css') {
+        return Array.prototype.slice.call(document.querySelectorAll(expr));
+    }
+    if (kind == 'path') {
+        return lookupPath(expr); // from path-index.js
+    }
+
+    var r = document.evaluate(expr, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+    var elements = [];
+    for (var i = 0; i < r.snapshotLength; i++) {
+        var n = r.snapshotItem(i);
+        if (n.nodeType == 1) elements.push(n);
+    }
+    return elements;
+}
+
+function isVisible(e) {
+    if (!(e.offsetWidth || e.offsetHeight || e.getClientRects().length)) return false;
+    return window.getComputedStyle(e).visibility != 'hidden';
+}
+
+function match() {
+    var elements = all();
+    for (var i = 0; i < elements.length; i++) {
+        if (isVisible(elements[i])) {
+            return last ? elements[elements.length - 1] : elements[i];
+        }
+    }
+    return null;
+}
+
+var observer = null;
+var interval = null;
+var timer = null;
+var done = false;
+
+function finish(e) {
+    if (done) return;
+    done = true;
+    if (observer) observer.disconnect();
+    clearInterval(interval);
+    clearTimeout(timer);
+    callback(e);
+}
+
+function check() {
+    var e = match();
+    if (e) finish(e);
+}
+
+check();
+if (!done) {
+    timer = setTimeout(function () { finish(null); }, timeout);
+    if (window.MutationObserver) {
+        observer = new MutationObserver(check);
+        observer.observe(document, { childList: true, subtree: true, attributes: true });
+        // visibility can also change without DOM mutation, e.g. when a stylesheet arrives
+        interval = setInterval(check, 250);
+    } else {
+        interval = setInterval(check, 50);
+    }
+}